@@ -0,0 +1,89 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sonalake.swaggerlog.config.Artifact;
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.config.RendererType;
+import com.sonalake.swaggerlog.config.Target;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The whole pipeline - fetch, diff, render and write - for a history of releases. Nexus is stood in for by
+ * swaggers on the local disk, passed in as the known versions, so only the plugin's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogGeneratorBenchmark {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Param({"10"})
+  private int releases;
+
+  @Param({"200"})
+  private int endpoints;
+
+  @Param({"1", "4"})
+  private int parallelism;
+
+  @Param({"ASCIIDOC", "MARKDOWN"})
+  private RendererType renderer;
+
+  private Path workDir;
+  private Config config;
+
+  @Setup
+  public void setUp() throws IOException {
+    workDir = Files.createTempDirectory("changelog-bench");
+    Path nexus = Files.createDirectories(workDir.resolve("nexus"));
+
+    List<VersionedArtifact> versions = new ArrayList<>();
+    for (int release = 0; release < releases; release++) {
+      Path swagger = nexus.resolve("bench-service-1." + release + "-swagger.json");
+      MAPPER.writeValue(swagger.toFile(), SyntheticSpecs.spec(release, endpoints));
+      versions.add(VersionedArtifact.builder()
+        .group("com.sonalake")
+        .artifact("bench-service")
+        .version("1." + release)
+        .downloadFrom(swagger.toString())
+        .build());
+    }
+
+    config = Config.builder()
+      .artifact(Artifact.builder().groupId("com.sonalake").artifactId("bench-service").classifier("swagger").build())
+      .target(Target.builder().targetdir(workDir.resolve("changelog").toString()).renderer(renderer).build())
+      .parallelism(parallelism)
+      .knownVersions(versions)
+      .build();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(workDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void generateChangeLog() throws IOException {
+    new LogGenerator(config).generateChangeLog();
+  }
+}
@@ -0,0 +1,66 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diffing two big swaggers, and rendering the diff with each of the renderers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RenderBenchmark {
+
+  @Param({"200", "2000"})
+  private int endpoints;
+
+  private JsonNode fromSpec;
+  private JsonNode toSpec;
+  private SwaggerDiff diff;
+  private NestedMarkdownRender markdownRender;
+  private Renderer markdownRenderer;
+  private AsciidocRenderer asciidocRenderer;
+
+  @Setup
+  public void setUp() {
+    fromSpec = SyntheticSpecs.spec(1, endpoints);
+    toSpec = SyntheticSpecs.spec(2, endpoints);
+    diff = compare();
+    markdownRender = NestedMarkdownRender.builder().baseChapterLevel(3).build();
+    markdownRenderer = new Renderer(3, Collections.emptyMap());
+    asciidocRenderer = AsciidocRenderer.builder().baseChapterLevel(3).build();
+  }
+
+  @Benchmark
+  public SwaggerDiff compare() {
+    return SwaggerDiff.compareV2(fromSpec, toSpec);
+  }
+
+  @Benchmark
+  public String nestedMarkdownRender() {
+    return markdownRender.render(diff);
+  }
+
+  @Benchmark
+  public void markdownRenderer() throws IOException {
+    markdownRenderer.render(diff, Writer.nullWriter());
+  }
+
+  @Benchmark
+  public void asciidocRenderer() throws IOException {
+    asciidocRenderer.render(diff, Writer.nullWriter());
+  }
+}
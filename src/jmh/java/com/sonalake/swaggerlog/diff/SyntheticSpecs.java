@@ -0,0 +1,53 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Builds swaggers of any size for the benchmarks. Each release changes a share of the endpoints: some are
+ * added, some removed, and some have parameters and response properties added or removed, so the diff between
+ * two releases has something in every section.
+ */
+final class SyntheticSpecs {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private SyntheticSpecs() {
+  }
+
+  /**
+   * @param release   which release this is, each one changes a different share of the endpoints
+   * @param endpoints how many endpoints the spec has
+   * @return the spec
+   */
+  static JsonNode spec(int release, int endpoints) {
+    ObjectNode spec = MAPPER.createObjectNode().put("swagger", "2.0");
+    spec.putObject("info").put("title", "bench-service").put("version", "1." + release);
+    ObjectNode paths = spec.putObject("paths");
+    for (int e = 0; e < endpoints; e++) {
+      // every release drops a few endpoints, and adds as many new ones
+      int id = (e % 25 == release % 25) ? endpoints * (release + 1) + e : e;
+      ObjectNode get = paths.putObject("/resources/" + id).putObject("get")
+        .put("summary", "Get resource " + id);
+
+      ArrayNode parameters = get.putArray("parameters");
+      int parameterCount = 3 + ((e + release) % 7 == 0 ? 1 : 0);
+      for (int p = 0; p < parameterCount; p++) {
+        parameters.addObject()
+          .put("name", "filter" + p).put("in", "query").put("type", "string")
+          .put("description", "Filter " + p + " of resource " + id);
+      }
+
+      ObjectNode properties = get.putObject("responses").putObject("200")
+        .put("description", "ok")
+        .putObject("schema").put("type", "object")
+        .putObject("properties");
+      int propertyCount = 8 + ((e + release) % 5 == 0 ? 2 : 0);
+      for (int p = 0; p < propertyCount; p++) {
+        properties.putObject("field" + p).put("type", "string").put("description", "Field " + p);
+      }
+    }
+    return spec;
+  }
+}
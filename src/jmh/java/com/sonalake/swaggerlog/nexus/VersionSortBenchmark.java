@@ -0,0 +1,71 @@
+package com.sonalake.swaggerlog.nexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting the versions found in nexus, and building the history of steps from them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class VersionSortBenchmark {
+
+  @Param({"1000", "20000"})
+  private int versions;
+
+  private List<VersionedArtifact> artifacts;
+
+  @Setup
+  public void setUp() {
+    artifacts = randomVersions(versions);
+  }
+
+  @Benchmark
+  public List<VersionedArtifact> sort() {
+    List<VersionedArtifact> sorted = new ArrayList<>(artifacts);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  @Benchmark
+  public List<VersionStep> buildHistory() {
+    return SearchResults.builder().versions(artifacts).build().buildHistory();
+  }
+
+  /**
+   * Versions in no particular order, as nexus returns them, with some pre-releases mixed in
+   *
+   * @param count how many versions
+   * @return the versions
+   */
+  static List<VersionedArtifact> randomVersions(int count) {
+    Random random = new Random(count);
+    List<VersionedArtifact> artifacts = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String version = String.format("%d.%d.%d", random.nextInt(20), random.nextInt(50), random.nextInt(200));
+      if (i % 10 == 0) {
+        version += "-RC" + random.nextInt(5);
+      }
+      artifacts.add(VersionedArtifact.builder()
+        .group("com.sonalake")
+        .artifact("bench-service")
+        .version(version)
+        .downloadFrom("http://nexus/" + version + "/bench-service-" + version + ".json")
+        .build());
+    }
+    return artifacts;
+  }
+}
@@ -0,0 +1,116 @@
+package com.sonalake.swaggerlog.nexus.formats;
+
+import com.sonalake.swaggerlog.config.Artifact;
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading large V2 and V3 search responses, and building the versions from them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NexusResultBenchmark {
+  private static final String GROUP_ID = "com.sonalake";
+  private static final String ARTIFACT_ID = "bench-service";
+  private static final String CLASSIFIER = "swagger";
+
+  @Param({"1000", "10000"})
+  private int versions;
+
+  private Config config;
+  private String v2Json;
+  private String v3Json;
+  private V2NexusResult v2Result;
+  private V3NexusResult v3Result;
+
+  @Setup
+  public void setUp() throws IOException {
+    config = Config.builder()
+      .artifact(Artifact.builder().groupId(GROUP_ID).artifactId(ARTIFACT_ID).classifier(CLASSIFIER).build())
+      .build();
+    v2Json = v2Response(versions);
+    v3Json = v3Response(versions);
+    v2Result = NexusReaders.V2.readValue(v2Json);
+    v3Result = NexusReaders.V3.readValue(v3Json);
+  }
+
+  @Benchmark
+  public List<VersionedArtifact> v2BuildVersions() {
+    return v2Result.buildVersions(config);
+  }
+
+  @Benchmark
+  public List<VersionedArtifact> v3BuildVersions() {
+    return v3Result.buildVersions(config);
+  }
+
+  @Benchmark
+  public List<VersionedArtifact> v2ReadAndBuildVersions() throws IOException {
+    return NexusReaders.V2.<V2NexusResult>readValue(v2Json).buildVersions(config);
+  }
+
+  @Benchmark
+  public List<VersionedArtifact> v3ReadAndBuildVersions() throws IOException {
+    return NexusReaders.V3.<V3NexusResult>readValue(v3Json).buildVersions(config);
+  }
+
+  /**
+   * A V2 lucene search response, where each version has a few artifact links and the swagger is the last of them
+   */
+  private static String v2Response(int count) {
+    StringBuilder json = new StringBuilder()
+      .append("{\"totalCount\":").append(count).append(",\"repoDetails\":[")
+      .append("{\"repositoryId\":\"releases\",\"repositoryURL\":\"http://nexus/service/local/repositories/releases\"}")
+      .append("],\"data\":[");
+    for (int i = 0; i < count; i++) {
+      json.append(i == 0 ? "" : ",")
+        .append("{\"groupId\":\"").append(GROUP_ID).append("\",\"artifactId\":\"").append(ARTIFACT_ID)
+        .append("\",\"version\":\"").append(version(i)).append("\",\"latestRelease\":\"9.9.9\",")
+        .append("\"artifactHits\":[{\"repositoryId\":\"releases\",\"artifactLinks\":[")
+        .append("{\"extension\":\"pom\"},{\"extension\":\"jar\"},{\"classifier\":\"sources\",\"extension\":\"jar\"},")
+        .append("{\"classifier\":\"").append(CLASSIFIER).append("\",\"extension\":\"json\"}]}]}");
+    }
+    return json.append("]}").toString();
+  }
+
+  /**
+   * A V3 search response, where each version has its jar, pom and checksum assets as well as the swagger
+   */
+  private static String v3Response(int count) {
+    StringBuilder json = new StringBuilder().append("{\"items\":[");
+    for (int i = 0; i < count; i++) {
+      String version = version(i);
+      String base = "com/sonalake/" + ARTIFACT_ID + "/" + version + "/" + ARTIFACT_ID + "-" + version;
+      json.append(i == 0 ? "" : ",")
+        .append("{\"id\":\"").append(i).append("\",\"repository\":\"releases\",\"format\":\"maven2\",")
+        .append("\"group\":\"").append(GROUP_ID).append("\",\"name\":\"").append(ARTIFACT_ID)
+        .append("\",\"version\":\"").append(version).append("\",\"assets\":[");
+      String[] suffixes = {".jar", ".pom", ".jar.sha1", "-" + CLASSIFIER + ".json"};
+      for (int s = 0; s < suffixes.length; s++) {
+        json.append(s == 0 ? "" : ",")
+          .append("{\"downloadUrl\":\"http://nexus/repository/releases/").append(base).append(suffixes[s])
+          .append("\",\"path\":\"").append(base).append(suffixes[s])
+          .append("\",\"checksum\":{\"sha1\":\"").append(String.format("%040x", i * 4L + s)).append("\"}}");
+      }
+      json.append("]}");
+    }
+    return json.append("],\"continuationToken\":null}").toString();
+  }
+
+  private static String version(int i) {
+    return String.format("%d.%d.%d", i / 1000, (i / 50) % 20, i % 50);
+  }
+}
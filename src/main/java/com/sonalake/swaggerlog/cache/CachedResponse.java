@@ -0,0 +1,18 @@
+package com.sonalake.swaggerlog.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+/**
+ * A response kept in the cache, along with the validators needed to check if it's still current
+ */
+@Getter
+@RequiredArgsConstructor
+@ToString
+public class CachedResponse {
+  private final Path body;
+  private final Validators validators;
+}
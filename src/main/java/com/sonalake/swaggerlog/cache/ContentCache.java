@@ -0,0 +1,354 @@
+package com.sonalake.swaggerlog.cache;
+
+import com.sonalake.swaggerlog.config.Cache;
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+/**
+ * An on-disk store of downloaded swaggers.
+ * <p>
+ * Released versions in nexus never change, so once a swagger has been downloaded it can be served from here
+ * without going back to the network. Entries are laid out by group/artifact/version/classifier, and each one
+ * has a sidecar file holding its SHA-1, which is checked against the checksum nexus reports (when it reports one).
+ * <p>
+ * The cache is capped in size: the least recently used entries are removed once it grows past that cap. Entries
+ * used by the current run are never removed, so the cap can be exceeded while a large history is being built. The
+ * cache directory is only walked once, the first time something is stored, and the size is tracked from then on.
+ * <p>
+ * Content that can change, such as search results and snapshot swaggers, is kept by its URI along with the
+ * {@link Validators} nexus sent with it, so it can be revalidated with a conditional GET rather than downloaded again.
+ */
+@Slf4j
+public class ContentCache {
+  private static final String CHECKSUM_SUFFIX = ".sha1";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String VALIDATORS_SUFFIX = ".validators";
+  private static final String RESPONSES = "responses";
+
+  private final Path directory;
+  private final long maxSizeBytes;
+
+  /**
+   * Anything used since this time belongs to the current run, and won't be evicted
+   */
+  private final FileTime startedAt = FileTime.from(Instant.now());
+
+  /**
+   * The entries used in this run, they're never evicted
+   */
+  private final Set<Path> used = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The size of each entry, with its sidecars - null until the cache directory has been walked
+   */
+  private Map<Path, Long> sizes;
+
+  /**
+   * The total size of the entries
+   */
+  private long size;
+
+  /**
+   * The entries that can be evicted, least recently used first
+   */
+  private Deque<Path> evictable;
+
+  public ContentCache(Path directory, long maxSizeBytes) {
+    this.directory = directory.toAbsolutePath().normalize();
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Build a cache from the config settings
+   *
+   * @param settings the cache settings
+   * @return the cache
+   */
+  public static ContentCache of(Cache settings) {
+    return new ContentCache(Paths.get(settings.getDirectory()), settings.getMaxSizeMb() * 1024 * 1024);
+  }
+
+  /**
+   * Build the cache for this config, if it has one
+   *
+   * @param config the changelog config
+   * @return the cache, or empty if caching is turned off
+   */
+  public static Optional<ContentCache> from(Config config) {
+    return Optional.ofNullable(config.getCache())
+      .filter(c -> isNotBlank(c.getDirectory()))
+      .map(ContentCache::of);
+  }
+
+  /**
+   * Look for a cached copy of this version's swagger
+   *
+   * @param version    the version of interest
+   * @param classifier the artifact's classifier, may be empty
+   * @return the cached file, if there is one and its checksum matches what nexus reported
+   */
+  public Optional<Path> find(VersionedArtifact version, String classifier) {
+    Path entry = entryFor(version, classifier);
+    used.add(entry);
+    if (!Files.isRegularFile(entry)) {
+      return Optional.empty();
+    }
+    try {
+      String checksum = new String(Files.readAllBytes(checksumFor(entry)), StandardCharsets.UTF_8).trim();
+      if (null != version.getSha1() && !version.getSha1().equalsIgnoreCase(checksum)) {
+        log.debug("Cached copy of {} has checksum {}, expected {}", version, checksum, version.getSha1());
+        return Optional.empty();
+      }
+      // this is what makes the eviction least-recently-used
+      Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+      return Optional.of(entry);
+    } catch (IOException e) {
+      log.debug("Can't read cached copy of {}", version, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Copy the content into the cache, checking it against the checksum nexus reported
+   *
+   * @param version    the version being stored
+   * @param classifier the artifact's classifier, may be empty
+   * @param content    the downloaded swagger
+   * @return the cached file
+   * @throws IOException if the content can't be written, or doesn't match the expected checksum
+   */
+  public Path store(VersionedArtifact version, String classifier, InputStream content) throws IOException {
+    Path entry = entryFor(version, classifier);
+    write(entry, content, version.getSha1(), version.toString());
+    track(entry);
+    return entry;
+  }
+
+  /**
+   * Look for a response kept from an earlier request to this URI
+   *
+   * @param uri the full URI that was requested
+   * @return the kept response, and the validators it was sent with
+   */
+  public Optional<CachedResponse> findResponse(URI uri) {
+    Path entry = responseFor(uri);
+    used.add(entry);
+    Path validators = validatorsFor(entry);
+    if (!Files.isRegularFile(entry) || !Files.isRegularFile(validators)) {
+      return Optional.empty();
+    }
+    try {
+      Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+      return Optional.of(new CachedResponse(entry, Validators.read(validators)));
+    } catch (IOException e) {
+      log.debug("Can't read kept response for {}", uri, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Keep the response, so it can be revalidated next time. If nexus sent a checksum, the content is checked
+   * against it.
+   *
+   * @param uri        the full URI that was requested
+   * @param validators the validators the response was sent with
+   * @param content    the response body
+   * @return the kept body
+   * @throws IOException if the content can't be written, or doesn't match the checksum
+   */
+  public Path storeResponse(URI uri, Validators validators, InputStream content) throws IOException {
+    Path entry = responseFor(uri);
+    write(entry, content, validators.getSha1(), uri.toString());
+    validators.write(validatorsFor(entry));
+    track(entry);
+    return entry;
+  }
+
+  /**
+   * Write the content, along with its checksum, via a temp file so a half-written entry is never found
+   */
+  private void write(Path entry, InputStream content, String expectedSha1, String description) throws IOException {
+    Files.createDirectories(entry.getParent());
+
+    Path temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), TEMP_SUFFIX);
+    try {
+      MessageDigest digest = sha1();
+      try (InputStream in = new DigestInputStream(content, digest)) {
+        Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+      }
+      String checksum = format("%040x", new BigInteger(1, digest.digest()));
+      if (null != expectedSha1 && !expectedSha1.equalsIgnoreCase(checksum)) {
+        throw new IOException(format("Checksum mismatch for %s: expected %s, got %s", description, expectedSha1, checksum));
+      }
+
+      Files.write(checksumFor(entry), checksum.getBytes(StandardCharsets.UTF_8));
+      Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Add a newly stored entry to the cache's size, and evict entries if it's now over its cap
+   */
+  private synchronized void track(Path entry) {
+    used.add(entry);
+    try {
+      if (null == sizes) {
+        scan();
+      }
+      long entrySize = sizeOf(entry);
+      Long previous = sizes.put(entry, entrySize);
+      size += entrySize - (null == previous ? 0 : previous);
+      evict();
+    } catch (IOException | UncheckedIOException e) {
+      // a failed eviction shouldn't fail the changelog, it'll be tried again on the next store
+      log.warn("Failed to evict entries from cache {}", directory, e);
+    }
+  }
+
+  /**
+   * Walk the cache directory, to find what's in the cache and which entries can be evicted
+   */
+  private void scan() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      List<Path> entries = files
+        .filter(Files::isRegularFile)
+        .filter(this::isEntry)
+        .collect(Collectors.toList());
+
+      Map<Path, Long> scanned = new HashMap<>();
+      long total = 0;
+      for (Path entry : entries) {
+        long entrySize = sizeOf(entry);
+        scanned.put(entry, entrySize);
+        total += entrySize;
+      }
+
+      entries.sort(Comparator.comparing(this::lastUsed));
+      Deque<Path> old = new ArrayDeque<>();
+      for (Path entry : entries) {
+        if (lastUsed(entry).compareTo(startedAt) < 0) {
+          old.add(entry);
+        }
+      }
+
+      sizes = scanned;
+      size = total;
+      evictable = old;
+    }
+  }
+
+  /**
+   * Remove the least recently used entries until the cache is back under its cap
+   */
+  private void evict() throws IOException {
+    while (size > maxSizeBytes && !evictable.isEmpty()) {
+      Path entry = evictable.poll();
+      if (used.contains(entry) || !sizes.containsKey(entry)) {
+        continue;
+      }
+      log.debug("Evicting {} from cache", entry);
+      size -= sizes.remove(entry);
+      Files.deleteIfExists(entry);
+      Files.deleteIfExists(checksumFor(entry));
+      Files.deleteIfExists(validatorsFor(entry));
+    }
+  }
+
+  private boolean isEntry(Path file) {
+    String name = file.toString();
+    return !name.endsWith(CHECKSUM_SUFFIX) && !name.endsWith(TEMP_SUFFIX) && !name.endsWith(VALIDATORS_SUFFIX);
+  }
+
+  private long sizeOf(Path entry) throws IOException {
+    long size = Files.size(entry);
+    for (Path sidecar : new Path[]{checksumFor(entry), validatorsFor(entry)}) {
+      size += Files.exists(sidecar) ? Files.size(sidecar) : 0;
+    }
+    return size;
+  }
+
+  private FileTime lastUsed(Path entry) {
+    try {
+      return Files.getLastModifiedTime(entry);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The entry is keyed by the maven coordinates of the swagger
+   */
+  private Path entryFor(VersionedArtifact version, String classifier) {
+    String classifierAppendage = isNotEmpty(classifier) ? "-" + classifier : "";
+    Path entry = directory
+      .resolve(version.getGroup())
+      .resolve(version.getArtifact())
+      .resolve(version.getVersion())
+      .resolve(format("%s-%s%s.json", version.getArtifact(), version.getVersion(), classifierAppendage))
+      .normalize();
+
+    if (!entry.startsWith(directory)) {
+      throw new IllegalArgumentException("Can't cache a version outside the cache directory: " + version);
+    }
+    return entry;
+  }
+
+  /**
+   * Responses are keyed by the digest of their URI, which keeps query strings out of the file names
+   */
+  private Path responseFor(URI uri) {
+    MessageDigest digest = sha1();
+    digest.update(uri.toString().getBytes(StandardCharsets.UTF_8));
+    return directory.resolve(RESPONSES).resolve(format("%040x.body", new BigInteger(1, digest.digest())));
+  }
+
+  private Path validatorsFor(Path entry) {
+    return entry.resolveSibling(entry.getFileName() + VALIDATORS_SUFFIX);
+  }
+
+  private Path checksumFor(Path entry) {
+    return entry.resolveSibling(entry.getFileName() + CHECKSUM_SUFFIX);
+  }
+
+  private MessageDigest sha1() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.sonalake.swaggerlog.cache;
+
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.http.HttpClientTransport;
+import com.sonalake.swaggerlog.http.Transport;
+import com.sonalake.swaggerlog.http.TransportRequest;
+import com.sonalake.swaggerlog.http.TransportResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link Transport} that keeps the responses to requests marked for {@link TransportRequest#isRevalidate()
+ * revalidation}, and next time asks nexus for them with a conditional GET. If nexus answers 304 (not modified)
+ * the kept copy is served, so a repeat run only costs a header-only round trip per request.
+ * <p>
+ * Responses that come without an ETag or Last-Modified header can't be revalidated, so they aren't kept.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RevalidatingTransport implements Transport {
+  private static final int NOT_MODIFIED = 304;
+  private static final int OK = 200;
+
+  private final Transport delegate;
+  private final ContentCache cache;
+
+  /**
+   * Get the transport for this config: the one shared by the build, revalidating against the cache if there is one
+   *
+   * @param config the changelog config
+   * @return the transport
+   */
+  public static Transport forConfig(Config config) {
+    Transport shared = HttpClientTransport.shared(config.getMaxConcurrentRequests());
+    return ContentCache.from(config)
+      .<Transport>map(cache -> new RevalidatingTransport(shared, cache))
+      .orElse(shared);
+  }
+
+  @Override
+  public CompletableFuture<TransportResponse> send(TransportRequest request) {
+    if (!request.isRevalidate()) {
+      return delegate.send(request);
+    }
+
+    URI uri = request.toUri();
+    Optional<CachedResponse> kept = cache.findResponse(uri);
+    TransportRequest conditional = kept.map(k -> k.getValidators().applyTo(request)).orElse(request);
+    return delegate.send(conditional).thenApply(response -> {
+      try {
+        return handle(uri, kept, response);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  private TransportResponse handle(URI uri, Optional<CachedResponse> kept, TransportResponse response) throws IOException {
+    if (NOT_MODIFIED == response.getStatus() && kept.isPresent()) {
+      log.debug("Not modified, using kept response for {}", uri);
+      response.getBody().close();
+      return withBody(OK, response, kept.get().getBody());
+    }
+
+    Validators validators = Validators.of(response);
+    if (OK != response.getStatus() || validators.isEmpty()) {
+      return response;
+    }
+
+    log.debug("Keeping response for {} with {}", uri, validators);
+    try (InputStream body = response.getBody()) {
+      return withBody(OK, response, cache.storeResponse(uri, validators, body));
+    }
+  }
+
+  private TransportResponse withBody(int status, TransportResponse response, Path body) throws IOException {
+    return TransportResponse.builder()
+      .status(status)
+      .headers(response.getHeaders())
+      .body(Files.newInputStream(body))
+      .build();
+  }
+}
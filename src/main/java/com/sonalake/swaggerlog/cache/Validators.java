@@ -0,0 +1,100 @@
+package com.sonalake.swaggerlog.cache;
+
+import com.sonalake.swaggerlog.http.TransportRequest;
+import com.sonalake.swaggerlog.http.TransportResponse;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * The headers nexus sent with a response that let us ask, next time, if the content has changed since.
+ */
+@Builder
+@Getter
+@ToString
+public class Validators {
+  static final String ETAG = "ETag";
+  static final String LAST_MODIFIED = "Last-Modified";
+  static final String SHA1 = "X-Checksum-Sha1";
+
+  private final String etag;
+  private final String lastModified;
+
+  /**
+   * The checksum nexus reported for the content, if any
+   */
+  private final String sha1;
+
+  /**
+   * @param response the response from nexus
+   * @return the validators it was sent with
+   */
+  public static Validators of(TransportResponse response) {
+    return Validators.builder()
+      .etag(response.header(ETAG).orElse(null))
+      .lastModified(response.header(LAST_MODIFIED).orElse(null))
+      .sha1(response.header(SHA1).orElse(null))
+      .build();
+  }
+
+  /**
+   * @return true if there's nothing here nexus could use to tell if the content has changed
+   */
+  public boolean isEmpty() {
+    return !isNotBlank(etag) && !isNotBlank(lastModified);
+  }
+
+  /**
+   * Make the request conditional on the content having changed since these validators were sent
+   *
+   * @param request the request to send
+   * @return the conditional request
+   */
+  public TransportRequest applyTo(TransportRequest request) {
+    TransportRequest.TransportRequestBuilder builder = request.toBuilder();
+    if (isNotBlank(etag)) {
+      builder.header("If-None-Match", etag);
+    }
+    if (isNotBlank(lastModified)) {
+      builder.header("If-Modified-Since", lastModified);
+    }
+    return builder.build();
+  }
+
+  void write(Path file) throws IOException {
+    Properties properties = new Properties();
+    if (null != etag) {
+      properties.setProperty(ETAG, etag);
+    }
+    if (null != lastModified) {
+      properties.setProperty(LAST_MODIFIED, lastModified);
+    }
+    if (null != sha1) {
+      properties.setProperty(SHA1, sha1);
+    }
+    try (OutputStream out = Files.newOutputStream(file)) {
+      properties.store(out, null);
+    }
+  }
+
+  static Validators read(Path file) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      properties.load(in);
+    }
+    return Validators.builder()
+      .etag(properties.getProperty(ETAG))
+      .lastModified(properties.getProperty(LAST_MODIFIED))
+      .sha1(properties.getProperty(SHA1))
+      .build();
+  }
+}
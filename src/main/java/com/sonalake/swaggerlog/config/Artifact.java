@@ -2,6 +2,8 @@ package com.sonalake.swaggerlog.config;
 
 import lombok.*;
 
+import java.io.Serializable;
+
 /**
  * Identifies an artifact in nexus
  */
@@ -10,7 +12,9 @@ import lombok.*;
 @Getter
 @Setter
 @RequiredArgsConstructor
-public class Artifact {
+public class Artifact implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private final String groupId;
   private final String artifactId;
   private final String classifier;
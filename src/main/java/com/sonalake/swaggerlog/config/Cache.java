@@ -0,0 +1,32 @@
+package com.sonalake.swaggerlog.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Config information to define where, and how much, downloaded swaggers can be cached between runs
+ */
+@ToString
+@Builder
+@Getter
+@AllArgsConstructor
+public class Cache implements Serializable {
+  public static final long DEFAULT_MAX_SIZE_MB = 256;
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The directory into which released swaggers will be cached
+   */
+  private String directory;
+
+  /**
+   * Once the cache grows past this size the least recently used swaggers are removed,
+   * defaults to {@value #DEFAULT_MAX_SIZE_MB}
+   */
+  @Builder.Default
+  private long maxSizeMb = DEFAULT_MAX_SIZE_MB;
+}
@@ -4,16 +4,25 @@ package com.sonalake.swaggerlog.config;
  * Defines config settings
  */
 
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.io.Serializable;
+import java.util.List;
+
 @ToString
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @AllArgsConstructor
-public class Config {
+public class Config implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  public static final int DEFAULT_PARALLELISM = 1;
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+
   /**
    * the root nexus path, e.g. http://atlanta.sonalake.corp:8081/nexus
    */
@@ -42,6 +51,80 @@ public class Config {
    * to true will tell it to use the V3 of the API
    */
   private boolean isVersion3;
+
+  /**
+   * If set, the versions are found in this directory, which has the maven repository layout, e.g.
+   * ~/.m2/repository, instead of by searching nexus
+   */
+  private String localRepository;
+
+  /**
+   * How many version steps can be fetched, diffed and rendered at the same time. Defaults to
+   * {@value #DEFAULT_PARALLELISM}, i.e. the steps are processed one after another.
+   */
+  @Builder.Default
+  private int parallelism = DEFAULT_PARALLELISM;
+
+  /**
+   * How many requests can be in flight to nexus at the same time, defaults to {@value #DEFAULT_MAX_CONCURRENT_REQUESTS}
+   */
+  @Builder.Default
+  private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+  /**
+   * If this is set, released swaggers are kept on disk and won't be downloaded again
+   */
+  private Cache cache;
+
+  /**
+   * If this is set, steps between two releases that were rendered by a previous run are not generated again
+   */
+  private boolean incremental;
+
+  /**
+   * If this is set, two specs that only differ in their descriptions are treated as identical, and not diffed
+   */
+  private boolean ignoreDescriptions;
+
+  /**
+   * If this is set, the steps are memory-bounded: no parsed spec is held between steps, and steps are only
+   * processed at the same time while their estimated heap use fits in this many MB
+   */
+  private long heapBudgetMb;
+
+  /**
+   * If this is set, only released versions at or above this one are in the history
+   */
+  private String minVersion;
+
+  /**
+   * If this is set, only released versions at or below this one are in the history
+   */
+  private String maxVersion;
+
+  /**
+   * If this is more than zero, only this many of the latest released versions (within the range, if there is one)
+   * are in the history
+   */
+  private int lastReleases;
+
+  /**
+   * What's done with pre-release versions, e.g. 1.2.0-RC1, by default they're left out
+   */
+  @Builder.Default
+  private PreReleasePolicy preReleases = PreReleasePolicy.RELEASES_ONLY;
+
+  /**
+   * Whether every release is diffed, or only the last release of each minor or major line
+   */
+  @Builder.Default
+  private RollupMode rollup = RollupMode.NONE;
+
+  /**
+   * The versions already found in nexus, e.g. by the gradle task while checking if it's up-to-date. If this
+   * is set, nexus won't be searched again.
+   */
+  private List<VersionedArtifact> knownVersions;
 }
 
 
@@ -0,0 +1,43 @@
+package com.sonalake.swaggerlog.config;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * What's done with pre-release versions, e.g. {@code 1.2.0-RC1}, when the history is built
+ */
+public enum PreReleasePolicy {
+  /**
+   * Pre-releases are left out of the history
+   */
+  RELEASES_ONLY,
+
+  /**
+   * Pre-releases are folded into their release: once a version is released its pre-releases are left out, and
+   * until then only its latest pre-release is in the history
+   */
+  COLLAPSE,
+
+  /**
+   * The releases are diffed one after another as usual, and each pre-release is also diffed against the release
+   * before it
+   */
+  AGAINST_BASE;
+
+  /**
+   * @param value the policy as configured, case-insensitive, with hyphens or underscores
+   * @return the policy, defaults to {@link #RELEASES_ONLY}
+   */
+  public static PreReleasePolicy of(String value) {
+    if (null == value) {
+      return RELEASES_ONLY;
+    }
+    String name = value.toUpperCase(Locale.ENGLISH).replace('-', '_');
+    return Arrays.stream(values())
+      .filter(policy -> policy.name().equals(name))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format(
+        "Unknown pre-release policy: %s, expected one of %s", value, Arrays.toString(values())
+      )));
+  }
+}
@@ -0,0 +1,35 @@
+package com.sonalake.swaggerlog.config;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How the changelog for each version step is rendered
+ */
+public enum RendererType {
+  /**
+   * The diff is written straight out as asciidoc
+   */
+  ASCIIDOC,
+
+  /**
+   * The diff is rendered as markdown by swagger-diff, then converted to asciidoc
+   */
+  MARKDOWN;
+
+  /**
+   * @param value the renderer as configured, case-insensitive
+   * @return the renderer, defaults to {@link #MARKDOWN}
+   */
+  public static RendererType of(String value) {
+    if (null == value) {
+      return MARKDOWN;
+    }
+    return Arrays.stream(values())
+      .filter(renderer -> renderer.name().equals(value.toUpperCase(Locale.ENGLISH)))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format(
+        "Unknown renderer: %s, expected one of %s", value, Arrays.toString(values())
+      )));
+  }
+}
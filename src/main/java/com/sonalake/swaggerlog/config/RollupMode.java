@@ -0,0 +1,57 @@
+package com.sonalake.swaggerlog.config;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Which releases are diffed against each other: every release, or only the last release of each release line
+ */
+public enum RollupMode {
+  /**
+   * Every release is diffed against the one before it
+   */
+  NONE(0),
+
+  /**
+   * Only the last release of each minor line is diffed, e.g. 1.2.7 against 1.3.4
+   */
+  MINOR(2),
+
+  /**
+   * Only the last release of each major line is diffed, e.g. 1.9.2 against 2.4.0
+   */
+  MAJOR(1);
+
+  /**
+   * How many components of the version core two releases share if they're in the same line
+   */
+  private final int depth;
+
+  RollupMode(int depth) {
+    this.depth = depth;
+  }
+
+  /**
+   * @return how many components of the version core are the same for every release in a line
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * @param value the mode as configured, case-insensitive
+   * @return the mode, defaults to {@link #NONE}
+   */
+  public static RollupMode of(String value) {
+    if (null == value) {
+      return NONE;
+    }
+    String name = value.toUpperCase(Locale.ENGLISH);
+    return Arrays.stream(values())
+      .filter(mode -> mode.name().equals(name))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format(
+        "Unknown rollup: %s, expected one of %s", value, Arrays.toString(values())
+      )));
+  }
+}
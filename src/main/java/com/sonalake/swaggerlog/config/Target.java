@@ -3,17 +3,22 @@ package com.sonalake.swaggerlog.config;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.Singular;
 import lombok.ToString;
 
+import java.io.Serializable;
+import java.util.Map;
+
 /**
  * Config information to define where and how to write the diffs
  */
 @ToString
-@Builder
+@Builder(toBuilder = true)
 @Getter
 @AllArgsConstructor
-public class Target {
+public class Target implements Serializable {
   public static final int DEFAULT_CHAPTER_LEVEL = 3;
+  private static final long serialVersionUID = 1L;
 
   /**
    * The main index, and any diff files, will be written into this directory
@@ -25,4 +30,21 @@ public class Target {
    */
   @Builder.Default
   private int baseChapterLevel = DEFAULT_CHAPTER_LEVEL;
+
+  /**
+   * How the diffs are rendered, defaults to markdown
+   */
+  @Builder.Default
+  private RendererType renderer = RendererType.MARKDOWN;
+
+  /**
+   * Post-processing rules for the rendered diffs, regex to replacement, applied in a single pass in this order
+   */
+  @Singular
+  private Map<String, String> replacements;
+
+  /**
+   * If true, when releases are rolled up, each diff lists the releases that were folded into it
+   */
+  private boolean listFoldedVersions;
 }
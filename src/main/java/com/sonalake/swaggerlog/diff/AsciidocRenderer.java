@@ -0,0 +1,188 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.deepoove.swagger.diff.model.ChangedEndpoint;
+import com.deepoove.swagger.diff.model.ChangedOperation;
+import com.deepoove.swagger.diff.model.ChangedParameter;
+import com.deepoove.swagger.diff.model.ElProperty;
+import com.deepoove.swagger.diff.model.Endpoint;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.parameters.Parameter;
+import lombok.Builder;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.repeat;
+
+/**
+ * Walks the diff and writes it straight out as asciidoc, so there's no markdown document, and no copy of the
+ * rendered file, held in memory.
+ * <p>
+ * The layout follows the markdown route: a chapter for the step, with a section for each of the new,
+ * deprecated and changed endpoints - only if there are any - and the parameter and return type changes of each
+ * changed endpoint in a listing block. Everything is written in one pass, so nothing needs fixing up afterwards.
+ */
+@RequiredArgsConstructor
+@Builder
+class AsciidocRenderer implements DiffRenderer {
+  private static final String INDENT = "    ";
+
+  /**
+   * What is the base chapter level - this is to allow the rendered docs to be placed into
+   * any doc.
+   */
+  private final int baseChapterLevel;
+
+  @Override
+  public void render(SwaggerDiff diff, Writer out, RunMetrics metrics) throws IOException {
+    metrics.timeIO(RunMetrics.Stage.RENDER, () -> {
+      write(diff, out);
+      return diff;
+    });
+  }
+
+  /**
+   * Walk the diff, writing each part as it's reached
+   */
+  private void write(SwaggerDiff diff, Writer out) throws IOException {
+    out.write("\n");
+    heading(out, baseChapterLevel);
+    out.write("Version " + diff.getOldVersion() + " to " + diff.getNewVersion() + "\n");
+
+    List<Endpoint> newEndpoints = orEmpty(diff.getNewEndpoints());
+    if (!newEndpoints.isEmpty()) {
+      section(out, "New Endpoints");
+      for (Endpoint endpoint : newEndpoints) {
+        endpoint(out, endpoint);
+      }
+    }
+
+    List<Endpoint> missingEndpoints = orEmpty(diff.getMissingEndpoints());
+    if (!missingEndpoints.isEmpty()) {
+      section(out, "Deprecated Endpoints");
+      for (Endpoint endpoint : missingEndpoints) {
+        endpoint(out, endpoint);
+      }
+    }
+
+    List<ChangedEndpoint> changedEndpoints = orEmpty(diff.getChangedEndpoints());
+    if (!changedEndpoints.isEmpty()) {
+      section(out, "Changed Endpoints");
+      for (ChangedEndpoint endpoint : changedEndpoints) {
+        for (Map.Entry<HttpMethod, ChangedOperation> operation : endpoint.getChangedOperations().entrySet()) {
+          changedOperation(out, endpoint.getPathUrl(), operation.getKey(), operation.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Write a changed endpoint, followed by the details of what changed
+   */
+  private void changedOperation(Writer out, String pathUrl, HttpMethod method, ChangedOperation operation)
+    throws IOException {
+    out.write("`" + method + "` " + pathUrl + " " + operation.getSummary() + "\n");
+
+    if (operation.isDiffParam()) {
+      startListing(out, "Parameters");
+      for (Parameter parameter : orEmpty(operation.getAddParameters())) {
+        line(out, "Add", parameter.getName(), parameter.getDescription());
+      }
+      List<ChangedParameter> changedParameters = orEmpty(operation.getChangedParameter());
+      for (ChangedParameter parameter : changedParameters) {
+        properties(out, "Insert", parameter.getIncreased());
+        properties(out, "Delete", parameter.getMissing());
+        properties(out, "Modify", parameter.getChanged());
+        if (parameter.isChangeRequired() || parameter.isChangeDescription()) {
+          changedParameter(out, parameter);
+        }
+      }
+      for (Parameter parameter : orEmpty(operation.getMissingParameters())) {
+        line(out, "Delete", parameter.getName(), parameter.getDescription());
+      }
+      endListing(out);
+    }
+
+    if (operation.isDiffProp()) {
+      startListing(out, "Return Type");
+      properties(out, "Insert", operation.getAddProps());
+      properties(out, "Delete", operation.getMissingProps());
+      properties(out, "Modify", operation.getChangedProps());
+      endListing(out);
+    }
+    out.write("\n");
+  }
+
+  private void startListing(Writer out, String label) throws IOException {
+    out.write("\n");
+    out.write(label);
+    out.write("\n\n----\n");
+  }
+
+  private void endListing(Writer out) throws IOException {
+    out.write("----\n");
+  }
+
+  private void properties(Writer out, String action, List<ElProperty> properties) throws IOException {
+    for (ElProperty property : orEmpty(properties)) {
+      line(out, action, property.getEl(), property.getProperty().getDescription());
+    }
+  }
+
+  /**
+   * Write a parameter whose required flag or description has changed
+   */
+  private void changedParameter(Writer out, ChangedParameter parameter) throws IOException {
+    Parameter left = parameter.getLeftParameter();
+    Parameter right = parameter.getRightParameter();
+    out.write(INDENT);
+    out.write(right.getName());
+    if (parameter.isChangeRequired()) {
+      out.write(" change into " + (right.getRequired() ? "required" : "not required"));
+    }
+    if (parameter.isChangeDescription()) {
+      out.write(" Notes " + left.getDescription() + " change into " + right.getDescription());
+    }
+    out.write("\n");
+  }
+
+  /**
+   * Write one line of a listing block, e.g. {@code Insert orderRequest.hardwareDetails //Details on the hardware}
+   */
+  private void line(Writer out, String action, String name, String description) throws IOException {
+    out.write(INDENT);
+    out.write(action);
+    out.write(" ");
+    out.write(name);
+    if (null != description) {
+      out.write(" //");
+      out.write(description);
+    }
+    out.write("\n");
+  }
+
+  private void endpoint(Writer out, Endpoint endpoint) throws IOException {
+    out.write("* `" + endpoint.getMethod() + "` " + endpoint.getPathUrl() + " " + endpoint.getSummary() + "\n");
+  }
+
+  private void section(Writer out, String label) throws IOException {
+    out.write("\n");
+    heading(out, 1 + baseChapterLevel);
+    out.write(label);
+    out.write("\n\n");
+  }
+
+  private void heading(Writer out, int level) throws IOException {
+    out.write(repeat('=', level));
+    out.write(" ");
+  }
+
+  private static <T> List<T> orEmpty(List<T> items) {
+    return null == items ? Collections.emptyList() : items;
+  }
+}
@@ -0,0 +1,80 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.sonalake.swaggerlog.config.RendererType;
+import com.sonalake.swaggerlog.config.Target;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Writes the changelog for one version step
+ */
+interface DiffRenderer {
+
+  /**
+   * Render the diff straight to the writer
+   *
+   * @param diff    the diff to render
+   * @param out     where the asciidoc is written
+   * @param metrics where the time spent on each stage of the rendering is recorded
+   * @throws IOException if it can't be written
+   */
+  void render(SwaggerDiff diff, Writer out, RunMetrics metrics) throws IOException;
+
+  /**
+   * Render the diff straight to the writer, without keeping track of the time it took
+   *
+   * @param diff the diff to render
+   * @param out  where the asciidoc is written
+   * @throws IOException if it can't be written
+   */
+  default void render(SwaggerDiff diff, Writer out) throws IOException {
+    render(diff, out, new RunMetrics());
+  }
+
+  /**
+   * The markdown renderer applies any post-processing rules in the same pass as its own fixes. The asciidoc
+   * renderer can only stream straight to the file if there are no rules, otherwise the rendered file is
+   * collected so the rules can be applied to it.
+   *
+   * @param target where and how the diffs are written
+   * @return the renderer the target asks for
+   */
+  static DiffRenderer forTarget(Target target) {
+    Map<String, String> replacements = ofNullable(target.getReplacements()).orElse(emptyMap());
+    if (RendererType.MARKDOWN == target.getRenderer()) {
+      return new Renderer(target.getBaseChapterLevel(), replacements);
+    }
+    DiffRenderer renderer = AsciidocRenderer.builder().baseChapterLevel(target.getBaseChapterLevel()).build();
+    if (replacements.isEmpty()) {
+      return renderer;
+    }
+    Swapper swapper = Swapper.builder().replacements(replacements).build();
+    return (diff, out, metrics) -> {
+      StringWriter rendered = new StringWriter();
+      renderer.render(diff, rendered, metrics);
+      write(out, metrics.time(RunMetrics.Stage.REPLACE, () -> swapper.swap(rendered.toString())), metrics);
+    };
+  }
+
+  /**
+   * Write a diff that was rendered in memory to its file
+   *
+   * @param out      where the asciidoc is written
+   * @param asciidoc the rendered diff
+   * @param metrics  where the time spent writing is recorded
+   * @throws IOException if it can't be written
+   */
+  static void write(Writer out, String asciidoc, RunMetrics metrics) throws IOException {
+    metrics.timeIO(RunMetrics.Stage.WRITE, () -> {
+      out.write(asciidoc);
+      return asciidoc.length();
+    });
+  }
+}
@@ -1,32 +1,69 @@
 package com.sonalake.swaggerlog.diff;
 
 import com.deepoove.swagger.diff.SwaggerDiff;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sonalake.swaggerlog.cache.ContentCache;
 import com.sonalake.swaggerlog.config.Config;
 import com.sonalake.swaggerlog.nexus.Scanner;
 import com.sonalake.swaggerlog.nexus.VersionStep;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static com.deepoove.swagger.diff.SwaggerDiff.compareV2;
+import static java.util.Optional.ofNullable;
+import static org.apache.commons.lang3.StringUtils.repeat;
 
 /**
  * Given the config, collect and sort the swaggers from nexus, and produce both the diffs and their index file.
  */
 @Builder
-@RequiredArgsConstructor
+@AllArgsConstructor
 @Slf4j
 public class LogGenerator {
   protected static final String CHANGE_LOG_ADOC = "change-log.adoc";
+  protected static final String CHANGE_LOG_MANIFEST = "change-log-manifest.json";
+  protected static final String CHANGE_LOG_METRICS = "change-log-metrics.json";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
   @Getter
   private final Config config;
 
+  /**
+   * The transport, cache and workers shared with the other changelogs in this run - if not set, this generator
+   * uses its own
+   */
+  private final SharedResources resources;
+
+  /**
+   * The renderer is only built once, so its post-processing rules are only compiled once
+   */
+  private final AtomicReference<DiffRenderer> renderer = new AtomicReference<>();
+
+  public LogGenerator(Config config) {
+    this(config, null);
+  }
+
   /**
    * Given the config, loop through the git history and produce a changelog
    *
@@ -35,36 +72,258 @@ public class LogGenerator {
   public void generateChangeLog() throws IOException {
 
     log.debug("Generating diff for {}", config);
+    RunMetrics metrics = new RunMetrics();
     Scanner scanner = buildScanner();
     Path index = Paths.get(config.getTarget().getTargetdir(), CHANGE_LOG_ADOC);
     Files.createDirectories(index.getParent());
     Files.deleteIfExists(index);
     log.debug("Writing to index {}", index);
 
-    scanner.getHistory().stream()
-      .map(step -> buildSwaggerDiff(scanner, step))
-      .filter(this::skipStepsWithNoChanges)
-      .forEach(diff -> appendDiffToChangelog(index, diff));
-    guaranteeIndexFile(index);
+    Path manifestFile = Paths.get(config.getTarget().getTargetdir(), CHANGE_LOG_MANIFEST);
+    Manifest previous = loadManifest(manifestFile);
+
+    // steps between two releases that were rendered on a previous run never need to be done again
+    List<VersionStep> history = metrics.time(RunMetrics.Stage.SEARCH, scanner::getHistory);
+    List<VersionStep> pending = history.stream()
+      .filter(step -> !isAlreadyRendered(previous, step))
+      .collect(Collectors.toList());
+    log.debug("{} of {} steps need to be generated", pending.size(), history.size());
+
+    MemoryBudget budget = buildMemoryBudget();
+    SpecFetcher fetcher = SpecFetcher.builder()
+      .scanner(scanner)
+      .transport(scanner.getTransport())
+      .cache(buildContentCache())
+      .classifier(config.getArtifact().getClassifier())
+      .history(pending)
+      .ignoreDescriptions(config.isIgnoreDescriptions())
+      .memoryBounded(null != budget)
+      .metrics(metrics)
+      .build();
+    metrics.count(RunMetrics.Counter.STEPS, pending.size());
+    List<Optional<Path>> generated = config.getParallelism() > 1
+      ? processStepsInParallel(scanner, fetcher, budget, pending, metrics)
+      : pending.stream().map(step -> processStep(scanner, fetcher, budget, step, metrics)).collect(Collectors.toList());
+    log.info("{} of {} steps had structurally identical specs, and weren't diffed",
+      metrics.get(RunMetrics.Counter.IDENTICAL_STEPS), pending.size());
+
+    Map<VersionStep, Optional<Path>> results = new HashMap<>();
+    for (int i = 0; i < pending.size(); i++) {
+      results.put(pending.get(i), generated.get(i));
+    }
+
+    // the index is always written in history order, no matter what order the steps finished in
+    metrics.timeIO(RunMetrics.Stage.INDEX, () -> {
+      Manifest manifest = new Manifest(rendererSettings());
+      for (VersionStep step : history) {
+        Optional<Path> target = results.containsKey(step)
+          ? results.get(step)
+          : previous.getRenderedFile(step).map(filename -> Paths.get(config.getTarget().getTargetdir(), filename));
+        manifest.record(step, target.map(t -> t.getFileName().toString()));
+        if (target.isPresent()) {
+          appendGeneratedFileToIndex(index, target.get());
+        }
+      }
+      guaranteeIndexFile(index);
+      saveManifest(manifestFile, manifest);
+      return manifest;
+    });
+    saveMetrics(metrics);
+  }
+
+  /**
+   * Write where the time went to a report in the target directory, and summarise it in the log
+   *
+   * @param metrics
+   * @throws IOException
+   */
+  private void saveMetrics(RunMetrics metrics) throws IOException {
+    Path report = Paths.get(config.getTarget().getTargetdir(), CHANGE_LOG_METRICS);
+    MAPPER.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), metrics.toReport());
+    metrics.logSummary(config.getArtifact().getGroupId() + ":" + config.getArtifact().getArtifactId());
+  }
+
+  /**
+   * In incremental mode, read the manifest left by the previous run. It's only used if it was rendered with
+   * the same settings as this run.
+   *
+   * @param manifestFile
+   * @return the previous manifest, or an empty one if there isn't a usable one
+   */
+  private Manifest loadManifest(Path manifestFile) {
+    Manifest empty = new Manifest(rendererSettings());
+    if (!config.isIncremental() || !Files.exists(manifestFile)) {
+      return empty;
+    }
+    try {
+      Manifest previous = MAPPER.readValue(manifestFile.toFile(), Manifest.class);
+      if (empty.getSettings().equals(previous.getSettings())) {
+        return previous;
+      }
+      log.info("Renderer settings have changed since {} was written, all steps will be generated", manifestFile);
+    } catch (IOException e) {
+      log.warn("Can't read {}, all steps will be generated", manifestFile, e);
+    }
+    return empty;
+  }
+
+  /**
+   * In incremental mode, record what was rendered in this run, otherwise remove any manifest from an earlier
+   * incremental run, as its files may have been overwritten.
+   *
+   * @param manifestFile
+   * @param manifest
+   * @throws IOException
+   */
+  private void saveManifest(Path manifestFile, Manifest manifest) throws IOException {
+    if (config.isIncremental()) {
+      MAPPER.writerWithDefaultPrettyPrinter().writeValue(manifestFile.toFile(), manifest);
+    } else {
+      Files.deleteIfExists(manifestFile);
+    }
+  }
+
+  /**
+   * A step can be skipped if the previous run rendered it, and its file is still there
+   *
+   * @param previous
+   * @param step
+   * @return true if the step doesn't need to be generated again
+   */
+  private boolean isAlreadyRendered(Manifest previous, VersionStep step) {
+    return previous.contains(step)
+      && previous.getRenderedFile(step)
+      .map(filename -> Files.exists(Paths.get(config.getTarget().getTargetdir(), filename)))
+      .orElse(true);
   }
 
+  /**
+   * The settings that affect how the step files are rendered - if any of these change, the files need to be
+   * rendered again.
+   *
+   * @return the renderer settings
+   */
+  private Map<String, String> rendererSettings() {
+    Map<String, String> settings = new LinkedHashMap<>();
+    settings.put("baseChapterLevel", String.valueOf(config.getTarget().getBaseChapterLevel()));
+    settings.put("ignoreDescriptions", String.valueOf(config.isIgnoreDescriptions()));
+    settings.put("renderer", config.getTarget().getRenderer().name());
+    settings.put("replacements", String.valueOf(config.getTarget().getReplacements()));
+    settings.put("listFoldedVersions", String.valueOf(config.getTarget().isListFoldedVersions()));
+    return settings;
+  }
 
   /**
-   * Build a difference-model between the two versions in the give step
+   * Process the steps on a bounded pool of worker threads, the shared workers if there are any. The results are
+   * returned in the same order as the history.
    *
    * @param scanner
+   * @param fetcher
+   * @param budget    the heap budget for the steps, may be null
+   * @param history
+   * @param metrics   where the time spent on each stage is recorded
+   * @return the generated file for each step, in history order
+   */
+  private List<Optional<Path>> processStepsInParallel(Scanner scanner, SpecFetcher fetcher, MemoryBudget budget,
+                                                      List<VersionStep> history, RunMetrics metrics) {
+    log.debug("Processing {} steps with {} workers", history.size(), config.getParallelism());
+    ExecutorService shared = ofNullable(resources).map(SharedResources::getWorkers).orElse(null);
+    ExecutorService workers = null == shared ? Executors.newFixedThreadPool(config.getParallelism()) : shared;
+    try {
+      List<Future<Optional<Path>>> pending = history.stream()
+        .map(step -> workers.submit(() -> processStep(scanner, fetcher, budget, step, metrics)))
+        .collect(Collectors.toList());
+
+      List<Optional<Path>> generated = new ArrayList<>();
+      for (Future<Optional<Path>> result : pending) {
+        generated.add(result.get());
+      }
+      return generated;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalArgumentException("Failed to generate diff", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while generating diffs", e);
+    } finally {
+      if (workers != shared) {
+        workers.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Fetch, diff and render a single step. If the two specs have the same structural fingerprint there can't be
+   * any changes, so the step is skipped without diffing.
+   * <p>
+   * If there's a heap budget, the step waits until there's room for it in the budget. The budget only holds steps
+   * back, it never runs more of them at once than there are workers, so it caps the {@code parallelism}.
+   *
+   * @param scanner
+   * @param fetcher
+   * @param budget    the heap budget for the steps, may be null
    * @param step
-   * @return
+   * @param metrics   where the time spent on each stage is recorded
+   * @return the generated file, or nothing if there were no changes in this step
    */
-  private SwaggerDiff buildSwaggerDiff(Scanner scanner, VersionStep step) {
+  private Optional<Path> processStep(Scanner scanner, SpecFetcher fetcher, MemoryBudget budget, VersionStep step,
+                                     RunMetrics metrics) {
     log.debug("Examining step {}", step);
+    if (null == budget) {
+      return processStep(scanner, fetcher, step, metrics);
+    }
+    MemoryBudget.Lease lease = budget.acquire(fetcher.sizeOf(step.getFrom()) + fetcher.sizeOf(step.getTo()));
+    try {
+      return processStep(scanner, fetcher, step, metrics);
+    } finally {
+      lease.close();
+    }
+  }
+
+  private Optional<Path> processStep(Scanner scanner, SpecFetcher fetcher, VersionStep step, RunMetrics metrics) {
+    Optional<SwaggerDiff> diff = buildSwaggerDiff(scanner, fetcher, step, metrics);
+    if (!diff.isPresent()) {
+      return Optional.empty();
+    }
+    if (!skipStepsWithNoChanges(diff.get())) {
+      metrics.count(RunMetrics.Counter.UNCHANGED_STEPS);
+      return Optional.empty();
+    }
+    Path target = writeDiffFile(step, diff.get(), metrics);
+    metrics.count(RunMetrics.Counter.RENDERED_FILES);
+    return Optional.of(target);
+  }
+
+
+  /**
+   * Build a difference-model between the two versions in the give step. The specs come from the fetcher, so
+   * a version shared by two consecutive steps is only downloaded and parsed once. The parsed specs aren't
+   * referenced once this returns, so only the diff is held while it's rendered.
+   *
+   * @param scanner
+   * @param fetcher
+   * @param step
+   * @param metrics   where the time spent on each stage is recorded
+   * @return the diff, or nothing if the specs were structurally identical
+   */
+  private Optional<SwaggerDiff> buildSwaggerDiff(Scanner scanner, SpecFetcher fetcher, VersionStep step,
+                                                 RunMetrics metrics) {
+    JsonNode fromSpec = fetcher.fetch(step.getFrom());
+    JsonNode toSpec = fetcher.fetch(step.getTo());
+    if (fetcher.fingerprint(step.getFrom(), fromSpec).equals(fetcher.fingerprint(step.getTo(), toSpec))) {
+      log.debug("Specs are structurally identical, skipping {}", step);
+      metrics.count(RunMetrics.Counter.IDENTICAL_STEPS);
+      return Optional.empty();
+    }
+
     String fromUri = scanner.getVersionUri(step.getFrom());
     String toUri = scanner.getVersionUri(step.getTo());
 
-    System.out.println(String.format("Diffing %s -> %s", fromUri, toUri));
     log.debug("Diffing urls {} -> {}", fromUri, toUri);
 
-    return compareV2(fromUri, toUri);
+    return Optional.of(metrics.time(RunMetrics.Stage.DIFF, () -> compareV2(fromSpec, toSpec)));
   }
 
   /**
@@ -100,36 +359,59 @@ public class LogGenerator {
   }
 
   /**
-   * Writes the changelog for the diff to the same directory as the path, and also appends a reference in the
-   * index file so the diff's change will be included
+   * Writes the changelog for the diff to the target directory. The reference in the index file is added
+   * later, so the index stays in history order.
    *
-   * @param index
+   * @param step the step the diff is for
    * @param diff
+   * @param metrics   where the time spent on each stage is recorded
+   * @return the file that was written
    */
-  private void appendDiffToChangelog(Path index, SwaggerDiff diff) {
+  private Path writeDiffFile(VersionStep step, SwaggerDiff diff, RunMetrics metrics) {
     String filename = "change-log-" + diff.getOldVersion() + "-" + diff.getNewVersion() + ".adoc";
     Path target = Paths.get(config.getTarget().getTargetdir(), filename);
     log.debug("Writing diff for {} -> {} to {}", diff.getOldVersion(), diff.getNewVersion(), target);
     try {
-      writeGeneratedFile(diff, target);
-      appendGeneratedFileToIndex(index, target);
+      writeGeneratedFile(step, diff, target, metrics);
+      return target;
     } catch (IOException e) {
       throw new IllegalArgumentException("Can't save markdown file: " + filename, e);
     }
   }
 
   /**
-   * Write a file for this diff to the target directory
+   * Write a file for this diff to the target directory. With the asciidoc renderer the file is streamed as the
+   * diff is walked, so the rendered file is never held in memory.
    *
+   * @param step
    * @param diff
    * @param target
+   * @param metrics   where the time spent on each stage is recorded
    * @throws IOException
    */
-  private void writeGeneratedFile(SwaggerDiff diff, Path target) throws IOException {
-    Files.copy(
-      IOUtils.toInputStream(new Renderer().render(config.getTarget().getBaseChapterLevel(), diff), StandardCharsets.UTF_8),
-      target,
-      StandardCopyOption.REPLACE_EXISTING);
+  private void writeGeneratedFile(VersionStep step, SwaggerDiff diff, Path target, RunMetrics metrics)
+    throws IOException {
+    try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+      renderer.updateAndGet(r -> null == r ? DiffRenderer.forTarget(config.getTarget()) : r)
+        .render(diff, out, metrics);
+      if (config.getTarget().isListFoldedVersions() && !step.getFolded().isEmpty()) {
+        writeFoldedVersions(step, out);
+      }
+    }
+  }
+
+  /**
+   * When the releases are rolled up, list the releases between the two versions that were folded into the diff
+   *
+   * @param step
+   * @param out
+   * @throws IOException
+   */
+  private void writeFoldedVersions(VersionStep step, Writer out) throws IOException {
+    out.write("\n" + repeat('=', 1 + config.getTarget().getBaseChapterLevel()) + " Includes\n\n");
+    for (VersionedArtifact version : step.getFolded()) {
+      out.write("* " + version.getVersion() + "\n");
+    }
   }
 
   /**
@@ -148,6 +430,28 @@ public class LogGenerator {
     );
   }
 
+  /**
+   * Use the shared heap budget, or build one if one is configured
+   *
+   * @return the budget, or null if the steps aren't memory-bounded
+   */
+  private MemoryBudget buildMemoryBudget() {
+    return ofNullable(resources)
+      .map(SharedResources::getBudget)
+      .orElseGet(() -> config.getHeapBudgetMb() > 0 ? new MemoryBudget(config.getHeapBudgetMb()) : null);
+  }
+
+  /**
+   * Use the shared on-disk cache of released swaggers, or build one if one is configured
+   *
+   * @return the cache, or null if there isn't one
+   */
+  private ContentCache buildContentCache() {
+    return ofNullable(resources)
+      .map(SharedResources::getCache)
+      .orElseGet(() -> ContentCache.from(config).orElse(null));
+  }
+
   /**
    * Build a scanner for the given config
    *
@@ -156,6 +460,7 @@ public class LogGenerator {
   protected Scanner buildScanner() {
     return Scanner.builder()
       .config(config)
+      .transport(ofNullable(resources).map(SharedResources::getTransport).orElse(null))
       .build();
   }
 
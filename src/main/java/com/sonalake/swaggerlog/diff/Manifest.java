@@ -0,0 +1,74 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sonalake.swaggerlog.nexus.VersionStep;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Records which steps have been rendered into the target directory, and with what settings.
+ * <p>
+ * The diff between two released versions can never change, so in incremental mode these steps are
+ * only ever rendered once. Steps that include the snapshot are never recorded.
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+class Manifest {
+  /**
+   * The renderer settings the steps were rendered with
+   */
+  @JsonProperty("settings")
+  private Map<String, String> settings = new LinkedHashMap<>();
+
+  /**
+   * The rendered file for each step, keyed by "from -> to" version; a null file means the step had no changes
+   */
+  @JsonProperty("steps")
+  private Map<String, String> steps = new LinkedHashMap<>();
+
+  Manifest(Map<String, String> settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * @param step the step of interest
+   * @return true if this step has been recorded
+   */
+  boolean contains(VersionStep step) {
+    return isBetweenReleases(step) && steps.containsKey(keyOf(step));
+  }
+
+  /**
+   * @param step the step of interest
+   * @return the file this step was rendered to, empty if it wasn't recorded or had no changes
+   */
+  Optional<String> getRenderedFile(VersionStep step) {
+    return contains(step) ? Optional.ofNullable(steps.get(keyOf(step))) : Optional.empty();
+  }
+
+  /**
+   * Record the result of a step, if it's between two releases
+   *
+   * @param step     the step
+   * @param filename the file it was rendered to, or empty if it had no changes
+   */
+  void record(VersionStep step, Optional<String> filename) {
+    if (isBetweenReleases(step)) {
+      steps.put(keyOf(step), filename.orElse(null));
+    }
+  }
+
+  private static boolean isBetweenReleases(VersionStep step) {
+    return !step.getFrom().isSnapshot() && !step.getTo().isSnapshot();
+  }
+
+  private static String keyOf(VersionStep step) {
+    return step.getFrom().getVersion() + " -> " + step.getTo().getVersion();
+  }
+}
@@ -0,0 +1,68 @@
+package com.sonalake.swaggerlog.diff;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits how many steps are processed at once by how much heap they're expected to need, rather than by a
+ * fixed count: a weighted semaphore, where the weight of a step is estimated from the size of its swagger files.
+ * <p>
+ * A step that's bigger than the whole budget can still run, but only on its own.
+ */
+@Slf4j
+class MemoryBudget {
+  /**
+   * A rough multiplier from the size of a swagger file to the heap it takes up once it's parsed, converted to the
+   * swagger model, diffed and rendered
+   */
+  static final int HEAP_BYTES_PER_SPEC_BYTE = 16;
+
+  private static final long MB = 1024 * 1024;
+
+  private final int budgetMb;
+  private final Semaphore permits;
+
+  /**
+   * @param budgetMb how much heap, in MB, the steps can use between them
+   */
+  MemoryBudget(long budgetMb) {
+    this.budgetMb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, budgetMb));
+    this.permits = new Semaphore(this.budgetMb, true);
+  }
+
+  /**
+   * Wait until there's room in the budget for a step with swaggers of this size
+   *
+   * @param specBytes the total size of the step's swagger files
+   * @return the lease, which must be closed once the step is done
+   */
+  Lease acquire(long specBytes) {
+    int weight = weightOf(specBytes);
+    try {
+      permits.acquire(weight);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for memory budget", e);
+    }
+    log.debug("Acquired {}MB of {}MB budget", weight, budgetMb);
+    return () -> permits.release(weight);
+  }
+
+  /**
+   * @param specBytes the total size of the step's swagger files
+   * @return the estimated heap, in MB, capped at the budget
+   */
+  int weightOf(long specBytes) {
+    long estimate = (specBytes * HEAP_BYTES_PER_SPEC_BYTE + MB - 1) / MB;
+    return (int) Math.max(1, Math.min(budgetMb, estimate));
+  }
+
+  /**
+   * A share of the budget, held while a step is processed
+   */
+  interface Lease extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -1,70 +1,72 @@
 package com.sonalake.swaggerlog.diff;
 
 import com.deepoove.swagger.diff.SwaggerDiff;
-import lombok.Builder;
-import lombok.RequiredArgsConstructor;
-import lombok.Singular;
 import lombok.extern.slf4j.Slf4j;
 import nl.jworks.markdown_to_asciidoc.Converter;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 /**
  * Renders the diff - in actuality, it uses two tools to dump the diff as markdown, and then translate it to asciidoc.
  * <p>
- * It also makes a few changes to the file to make it less hokey.
+ * It also makes a few changes to the file to make it less hokey. This is the default, the
+ * {@link AsciidocRenderer} writes the asciidoc directly.
  */
 @Slf4j
-class Renderer {
+class Renderer implements DiffRenderer {
+  /**
+   * The level of the top chapter
+   */
+  private final int baseChapterLevel;
+
+  private final Swapper swapper;
+
+  /**
+   * @param baseChapterLevel the level of the top chapter
+   * @param replacements     post-processing rules to apply after our own, regex to replacement
+   */
+  Renderer(int baseChapterLevel, Map<String, String> replacements) {
+    this.baseChapterLevel = baseChapterLevel;
+    this.swapper = buildSwapper(replacements);
+  }
 
-  String render(int baseChapterLevel, SwaggerDiff diff) {
-    String renderedDiff = NestedMarkdownRender.builder().baseChapterLevel(baseChapterLevel).build().render(diff);
-    return diffToAsciidoc(renderedDiff);
+  @Override
+  public void render(SwaggerDiff diff, Writer out, RunMetrics metrics) throws IOException {
+    String renderedDiff = metrics.time(RunMetrics.Stage.RENDER,
+      () -> NestedMarkdownRender.builder().baseChapterLevel(baseChapterLevel).build().render(diff));
+    DiffRenderer.write(out, diffToAsciidoc(renderedDiff, metrics), metrics);
   }
 
   /**
    *  The provided "convertMarkdownToAsciiDoc" doesn't quite work, so we do some small
    *  changes to the output file so it will render pretty.
    * @param renderedDiff
+   * @param metrics where the time spent converting, and fixing up, is recorded
    * @return
    */
-  private String diffToAsciidoc(String renderedDiff) {
+  private String diffToAsciidoc(String renderedDiff, RunMetrics metrics) {
+    String converted = metrics.time(RunMetrics.Stage.CONVERT, () -> Converter.convertMarkdownToAsciiDoc(renderedDiff));
+    return metrics.time(RunMetrics.Stage.REPLACE, () -> swapper.swap(converted));
+  }
 
-    Swapper swapper = Swapper.builder()
+  /**
+   * Our own fixes go first, then any configured rules, so they're all applied in the one pass
+   *
+   * @param replacements the configured post-processing rules
+   * @return the swapper for the converted asciidoc
+   */
+  private static Swapper buildSwapper(Map<String, String> replacements) {
+    return Swapper.builder()
       // clean up some of the rendering that breaks our asciidoc
       .replacement("\\n\\s*Parameters", "\n\nParameters\n")
       .replacement("\\n\\s*Return Type", "\n\nReturn Type\n")
       .replacement("—", "")
       // the markdown renderer throws this in and it mucks up asciidoc
       .replacement("\\n----", "\n")
+      .replacements(replacements)
       .build();
-
-    return swapper.swap(Converter.convertMarkdownToAsciiDoc(renderedDiff));
-  }
-
-  /**
-   * Simple class to allow for a configurable way to do bulk string replacements.
-   */
-  @Builder
-  @RequiredArgsConstructor
-  private static class Swapper {
-    @Singular
-    private final Map<String, String> replacements;
-
-    /**
-     * Given a string, apply all the given replacements
-     * @param rendered
-     * @return
-     */
-    String swap(String rendered) {
-      String updated = rendered;
-      for (Map.Entry<String, String> replacement : replacements.entrySet()) {
-        String find = replacement.getKey();
-        String replace = replacement.getValue();
-        updated = updated.replaceAll(find, replace);
-      }
-      return updated;
-    }
   }
 
 }
@@ -0,0 +1,263 @@
+package com.sonalake.swaggerlog.diff;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Where the time went in one run of the generator: how long each stage took, every time it ran, and counts of
+ * what was done. This is safe to share between the threads processing the steps.
+ * <p>
+ * At the end of the run it's written to the target directory as a report, and summarised in the log.
+ */
+@Slf4j
+class RunMetrics {
+
+  /**
+   * The stages of a run
+   */
+  enum Stage {
+    /**
+     * Finding the versions in nexus, and building the history
+     */
+    SEARCH,
+
+    /**
+     * Downloading a swagger, into the cache, a temporary file or memory
+     */
+    FETCH,
+
+    /**
+     * Parsing a swagger, wherever it came from: the cache, the local disk or a download
+     */
+    PARSE,
+
+    /**
+     * Working out the structural fingerprint of a swagger
+     */
+    FINGERPRINT,
+
+    /**
+     * Comparing two swaggers
+     */
+    DIFF,
+
+    /**
+     * Rendering a diff: as markdown on the markdown route. The asciidoc renderer streams straight to the file, so
+     * there it's written as it's rendered, unless there are post-processing rules.
+     */
+    RENDER,
+
+    /**
+     * Converting the rendered markdown to asciidoc
+     */
+    CONVERT,
+
+    /**
+     * Applying the post-processing rules to the rendered asciidoc
+     */
+    REPLACE,
+
+    /**
+     * Writing a rendered diff to its file, when it wasn't streamed as it was rendered
+     */
+    WRITE,
+
+    /**
+     * Writing the index and the manifest
+     */
+    INDEX
+  }
+
+  /**
+   * The things counted in a run
+   */
+  enum Counter {
+    STEPS,
+    IDENTICAL_STEPS,
+    UNCHANGED_STEPS,
+    RENDERED_FILES,
+    SPECS_FETCHED,
+    CACHE_HITS,
+    BYTES_FETCHED
+  }
+
+  /**
+   * Some work that can fail to read or write
+   */
+  interface IOWork<T> {
+    T run() throws IOException;
+  }
+
+  private final Map<Stage, List<Long>> timings = new EnumMap<>(Stage.class);
+  private final Map<Counter, AtomicLong> counters = new EnumMap<>(Counter.class);
+
+  RunMetrics() {
+    // the maps are filled up front, so they're only ever read once built
+    for (Stage stage : Stage.values()) {
+      timings.put(stage, Collections.synchronizedList(new ArrayList<>()));
+    }
+    for (Counter counter : Counter.values()) {
+      counters.put(counter, new AtomicLong());
+    }
+  }
+
+  /**
+   * Time some work as a run of the given stage
+   *
+   * @param stage the stage
+   * @param work  the work
+   * @return the result of the work
+   */
+  <T> T time(Stage stage, Supplier<T> work) {
+    long start = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      record(stage, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Time some work as a run of the given stage
+   *
+   * @param stage the stage
+   * @param work  the work
+   * @return the result of the work
+   * @throws IOException if the work fails
+   */
+  <T> T timeIO(Stage stage, IOWork<T> work) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return work.run();
+    } finally {
+      record(stage, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @param stage the stage
+   * @param nanos how long one run of the stage took
+   */
+  void record(Stage stage, long nanos) {
+    timings.get(stage).add(nanos);
+  }
+
+  /**
+   * @param counter what to count
+   * @param amount  how many more
+   */
+  void count(Counter counter, long amount) {
+    counters.get(counter).addAndGet(amount);
+  }
+
+  /**
+   * @param counter what to count
+   */
+  void count(Counter counter) {
+    count(counter, 1);
+  }
+
+  /**
+   * @param counter what was counted
+   * @return the count so far
+   */
+  long get(Counter counter) {
+    return counters.get(counter).get();
+  }
+
+  /**
+   * The report: for each stage that ran, how many times it ran and a summary of how long it took, in ms, and the
+   * counters
+   *
+   * @return the report, ready to be written as JSON
+   */
+  Map<String, Object> toReport() {
+    Map<String, Object> stages = new LinkedHashMap<>();
+    for (Stage stage : Stage.values()) {
+      List<Long> sorted = sortedTimings(stage);
+      if (sorted.isEmpty()) {
+        continue;
+      }
+      Map<String, Object> summary = new LinkedHashMap<>();
+      summary.put("count", sorted.size());
+      summary.put("totalMs", millis(sorted.stream().mapToLong(Long::longValue).sum()));
+      summary.put("p50Ms", millis(percentile(sorted, 50)));
+      summary.put("p95Ms", millis(percentile(sorted, 95)));
+      summary.put("maxMs", millis(sorted.get(sorted.size() - 1)));
+      stages.put(name(stage), summary);
+    }
+
+    Map<String, Object> counts = new LinkedHashMap<>();
+    for (Counter counter : Counter.values()) {
+      counts.put(name(counter), get(counter));
+    }
+
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("stages", stages);
+    report.put("counters", counts);
+    return report;
+  }
+
+  /**
+   * Log a line for each stage, and one for the counters
+   *
+   * @param artifact what the run was for
+   */
+  void logSummary(String artifact) {
+    for (Stage stage : Stage.values()) {
+      List<Long> sorted = sortedTimings(stage);
+      if (!sorted.isEmpty()) {
+        log.info("swagger-changelog {} {}: {} runs, total {}ms, p95 {}ms, max {}ms",
+          artifact, name(stage), sorted.size(),
+          millis(sorted.stream().mapToLong(Long::longValue).sum()),
+          millis(percentile(sorted, 95)),
+          millis(sorted.get(sorted.size() - 1)));
+      }
+    }
+    log.info("swagger-changelog {} counters: {}", artifact, toReport().get("counters"));
+  }
+
+  private List<Long> sortedTimings(Stage stage) {
+    List<Long> timing = timings.get(stage);
+    List<Long> sorted;
+    synchronized (timing) {
+      sorted = new ArrayList<>(timing);
+    }
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * Nearest-rank percentile
+   */
+  private static long percentile(List<Long> sorted, int percentile) {
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+    return sorted.get(Math.max(0, rank - 1));
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  /**
+   * e.g. {@code IDENTICAL_STEPS} is reported as {@code identicalSteps}
+   */
+  private static String name(Enum<?> value) {
+    StringBuilder name = new StringBuilder();
+    for (String word : value.name().toLowerCase(Locale.ENGLISH).split("_")) {
+      name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+    }
+    return name.toString();
+  }
+}
@@ -0,0 +1,114 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.sonalake.swaggerlog.cache.ContentCache;
+import com.sonalake.swaggerlog.cache.RevalidatingTransport;
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.http.HttpClientTransport;
+import com.sonalake.swaggerlog.http.Transport;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The resources that every changelog generated in one run can share: the connection pool, the swagger cache and
+ * the workers that diff the steps, and the heap budget. Sharing them means the per-artifact cost is just the work for that artifact.
+ * <p>
+ * Work items run by gradle's worker API can't be handed these directly, so they {@link #acquire(String, Config)}
+ * them by the id of the run instead: items from the same run in the same JVM share one set, which is closed
+ * when the last of them releases it.
+ */
+@Getter
+public class SharedResources implements AutoCloseable {
+  /**
+   * The resources in use by each run, with how many work items are using them
+   */
+  private static final Map<String, Lease> LEASES = new HashMap<>();
+
+  private final Transport transport;
+
+  /**
+   * The swagger cache, or null if caching is turned off
+   */
+  private final ContentCache cache;
+
+  /**
+   * The workers for the steps, or null if steps are processed one at a time
+   */
+  private final ExecutorService workers;
+
+  /**
+   * The heap the steps can use between them, or null if the steps aren't memory-bounded
+   */
+  @Getter(AccessLevel.PACKAGE)
+  private final MemoryBudget budget;
+
+  public SharedResources(Transport transport, ContentCache cache, int parallelism, long heapBudgetMb) {
+    this.transport = transport;
+    this.cache = cache;
+    this.workers = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+    this.budget = heapBudgetMb > 0 ? new MemoryBudget(heapBudgetMb) : null;
+  }
+
+  /**
+   * Build the shared resources from the config's transport, cache, parallelism and heap budget settings
+   *
+   * @param config the config
+   * @return the resources, which must be closed once all the changelogs have been generated
+   */
+  public static SharedResources forConfig(Config config) {
+    ContentCache cache = ContentCache.from(config).orElse(null);
+    Transport shared = HttpClientTransport.shared(config.getMaxConcurrentRequests());
+    return new SharedResources(
+      null == cache ? shared : new RevalidatingTransport(shared, cache),
+      cache,
+      config.getParallelism(),
+      config.getHeapBudgetMb()
+    );
+  }
+
+  /**
+   * Get the resources for this run, building them if no other work item in this JVM is using them
+   *
+   * @param runId  identifies the run
+   * @param config the config of the work item
+   * @return the resources, which must be {@link #release(String) released} once the work item is done
+   */
+  public static synchronized SharedResources acquire(String runId, Config config) {
+    Lease lease = LEASES.computeIfAbsent(runId, id -> new Lease(forConfig(config)));
+    lease.users++;
+    return lease.resources;
+  }
+
+  /**
+   * Stop using the resources for this run, they're closed once no work item is using them
+   *
+   * @param runId identifies the run
+   */
+  public static synchronized void release(String runId) {
+    Lease lease = LEASES.get(runId);
+    if (null != lease && --lease.users <= 0) {
+      LEASES.remove(runId);
+      lease.resources.close();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (null != workers) {
+      workers.shutdownNow();
+    }
+  }
+
+  private static class Lease {
+    private final SharedResources resources;
+    private int users;
+
+    private Lease(SharedResources resources) {
+      this.resources = resources;
+    }
+  }
+}
@@ -0,0 +1,363 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sonalake.swaggerlog.cache.ContentCache;
+import com.sonalake.swaggerlog.http.Transport;
+import com.sonalake.swaggerlog.http.TransportRequest;
+import com.sonalake.swaggerlog.http.TransportResponse;
+import com.sonalake.swaggerlog.nexus.Scanner;
+import com.sonalake.swaggerlog.nexus.VersionStep;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Downloads and parses the swaggers in a history, so each version is only fetched once.
+ * <p>
+ * Every version other than the first and last is the "to" of one step and the "from" of the next, so
+ * the parsed spec is held only until the last step that needs it has asked for it.
+ * <p>
+ * This is safe to share between threads: if two steps ask for the same version at the same time, only one
+ * of them will download it, and the other will wait for the result.
+ * <p>
+ * If there is a cache, released versions are read from it when they're there, and stored in it when they're not.
+ * A snapshot served over http can change, so it's revalidated with a conditional GET instead.
+ * <p>
+ * In memory-bounded mode no parsed spec is held between steps. Instead each version is downloaded once to a
+ * local file (the cache, or a temporary file if there's no cache), and parsed again from there every time a step
+ * needs it, so the only specs in memory are the two of the steps being processed. The size of the local files
+ * also gives an estimate of what a step will cost.
+ */
+@Slf4j
+class SpecFetcher {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final Scanner scanner;
+  private final Transport transport;
+  private final ContentCache cache;
+  private final String classifier;
+
+  /**
+   * Where the time spent fetching, parsing and fingerprinting is recorded
+   */
+  private final RunMetrics metrics;
+
+  /**
+   * How many more times each version will be asked for before it can be released
+   */
+  private final Map<VersionedArtifact, AtomicInteger> pendingUses = new HashMap<>();
+
+  /**
+   * The structural fingerprint of every version fetched so far
+   */
+  private final Map<VersionedArtifact, String> fingerprints = new ConcurrentHashMap<>();
+
+  /**
+   * If true, descriptions are left out of the fingerprints
+   */
+  private final boolean ignoreDescriptions;
+
+  /**
+   * If true, parsed specs aren't held between steps
+   */
+  private final boolean memoryBounded;
+
+  /**
+   * The parsed specs that are still needed by some step
+   */
+  private final Map<VersionedArtifact, CompletableFuture<JsonNode>> specs = new ConcurrentHashMap<>();
+
+  /**
+   * In memory-bounded mode, the local copies of the versions that are still needed by some step
+   */
+  private final Map<VersionedArtifact, CompletableFuture<Path>> copies = new ConcurrentHashMap<>();
+
+  /**
+   * The local copies that are temporary, and are deleted once they're no longer needed
+   */
+  private final Set<Path> temporaries = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param scanner            the scanner that produced the history
+   * @param transport          how the swaggers are downloaded from nexus
+   * @param cache              where released swaggers are kept between runs, may be null
+   * @param classifier         the classifier of the swagger artifacts, may be empty
+   * @param history            the steps that will be diffed
+   * @param ignoreDescriptions true if descriptions should be left out of the fingerprints
+   * @param memoryBounded      true if parsed specs shouldn't be held between steps
+   * @param metrics            where the fetches are recorded, may be null
+   */
+  @Builder
+  SpecFetcher(Scanner scanner, Transport transport, ContentCache cache, String classifier, List<VersionStep> history,
+              boolean ignoreDescriptions, boolean memoryBounded, RunMetrics metrics) {
+    this.scanner = scanner;
+    this.metrics = null == metrics ? new RunMetrics() : metrics;
+    this.ignoreDescriptions = ignoreDescriptions;
+    this.memoryBounded = memoryBounded;
+    this.transport = transport;
+    this.cache = cache;
+    this.classifier = classifier;
+    for (VersionStep step : history) {
+      pendingUses.computeIfAbsent(step.getFrom(), v -> new AtomicInteger()).incrementAndGet();
+      pendingUses.computeIfAbsent(step.getTo(), v -> new AtomicInteger()).incrementAndGet();
+    }
+  }
+
+  /**
+   * Get the parsed swagger for this version, downloading it only if this is the first time it's been asked for.
+   *
+   * @param version the version of interest
+   * @return the parsed swagger document
+   */
+  JsonNode fetch(VersionedArtifact version) {
+    try {
+      if (memoryBounded) {
+        return readTree(localCopy(version), version);
+      }
+      // only the first caller does the download, anyone else waits on its result
+      return once(specs, version, () -> load(version));
+    } finally {
+      release(version);
+    }
+  }
+
+  /**
+   * Estimate how big this version's swagger is, before it's parsed. This is only known in memory-bounded mode,
+   * where the swagger is downloaded before it's parsed.
+   *
+   * @param version the version of interest
+   * @return the size of the swagger file, in bytes, or zero if it's not known
+   */
+  long sizeOf(VersionedArtifact version) {
+    if (!memoryBounded) {
+      return 0;
+    }
+    try {
+      return Files.size(localCopy(version));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to read swagger for: " + version, e);
+    }
+  }
+
+  /**
+   * Once the last step has used a version we can let it go
+   */
+  private void release(VersionedArtifact version) {
+    AtomicInteger remaining = pendingUses.get(version);
+    if (null == remaining || remaining.decrementAndGet() <= 0) {
+      log.debug("Releasing spec for {}", version);
+      specs.remove(version);
+      CompletableFuture<Path> copy = copies.remove(version);
+      if (null != copy && !copy.isCompletedExceptionally() && temporaries.remove(copy.join())) {
+        try {
+          Files.deleteIfExists(copy.join());
+        } catch (IOException e) {
+          log.warn("Failed to delete temporary copy of {}", version, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Only the first caller for a version does the work, anyone else gets its result
+   */
+  private static <T> T once(Map<VersionedArtifact, CompletableFuture<T>> results, VersionedArtifact version,
+                            Supplier<T> work) {
+    CompletableFuture<T> created = new CompletableFuture<>();
+    CompletableFuture<T> existing = results.putIfAbsent(version, created);
+    if (null == existing) {
+      try {
+        created.complete(work.get());
+      } catch (RuntimeException e) {
+        created.completeExceptionally(e);
+      }
+    }
+    try {
+      return (null == existing ? created : existing).join();
+    } catch (CompletionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  /**
+   * Get the structural fingerprint of this version, it's only worked out the first time it's asked for
+   *
+   * @param version the version of interest
+   * @param spec    the parsed swagger for that version
+   * @return the fingerprint
+   */
+  String fingerprint(VersionedArtifact version, JsonNode spec) {
+    return fingerprints.computeIfAbsent(version, v -> metrics.time(
+      RunMetrics.Stage.FINGERPRINT, () -> SpecFingerprint.of(spec, ignoreDescriptions)
+    ));
+  }
+
+  /**
+   * Download and parse the swagger for the given version, the download and the parse are timed on their own
+   *
+   * @param version the version to load
+   * @return the parsed swagger document
+   */
+  private JsonNode load(VersionedArtifact version) {
+    String uri = scanner.getVersionUri(version);
+    // local files are read where they are
+    if (!uri.contains("://")) {
+      return readTree(Paths.get(uri), version);
+    }
+    metrics.count(RunMetrics.Counter.SPECS_FETCHED);
+    try {
+      // snapshots can change, so they are never cached
+      if (null == cache || version.isSnapshot()) {
+        log.debug("Fetching spec {}", uri);
+        byte[] downloaded = metrics.timeIO(RunMetrics.Stage.FETCH, () -> {
+          try (InputStream content = open(uri, version.isSnapshot())) {
+            return content.readAllBytes();
+          }
+        });
+        return metrics.timeIO(RunMetrics.Stage.PARSE, () -> MAPPER.readTree(downloaded));
+      }
+
+      Optional<Path> cached = cache.find(version, classifier);
+      if (cached.isPresent()) {
+        log.debug("Using cached spec {} for {}", cached.get(), uri);
+        metrics.count(RunMetrics.Counter.CACHE_HITS);
+        return readTree(cached.get(), version);
+      }
+
+      log.debug("Fetching spec {} into cache", uri);
+      Path stored = metrics.timeIO(RunMetrics.Stage.FETCH, () -> {
+        try (InputStream content = open(uri, false)) {
+          return cache.store(version, classifier, content);
+        }
+      });
+      return readTree(stored, version);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to read swagger from: " + uri, e);
+    }
+  }
+
+  /**
+   * Get a local file for this version, downloading it only the first time it's asked for
+   *
+   * @param version the version of interest
+   * @return the local copy
+   */
+  private Path localCopy(VersionedArtifact version) {
+    return once(copies, version, () -> download(version));
+  }
+
+  /**
+   * Local snapshots are used where they are, released versions go in the cache, if there is one, and anything
+   * else is downloaded to a temporary file
+   *
+   * @param version the version to download
+   * @return the local copy
+   */
+  private Path download(VersionedArtifact version) {
+    String uri = scanner.getVersionUri(version);
+    if (!uri.contains("://")) {
+      return Paths.get(uri);
+    }
+    metrics.count(RunMetrics.Counter.SPECS_FETCHED);
+    try {
+      return metrics.timeIO(RunMetrics.Stage.FETCH, () -> {
+        if (null != cache && !version.isSnapshot()) {
+          Optional<Path> cached = cache.find(version, classifier);
+          if (cached.isPresent()) {
+            metrics.count(RunMetrics.Counter.CACHE_HITS);
+            return cached.get();
+          }
+          try (InputStream content = open(uri, false)) {
+            return cache.store(version, classifier, content);
+          }
+        }
+
+        Path temporary = Files.createTempFile("swagger-", ".json");
+        temporaries.add(temporary);
+        try (InputStream content = open(uri, version.isSnapshot())) {
+          Files.copy(content, temporary, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return temporary;
+      });
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to read swagger from: " + uri, e);
+    }
+  }
+
+  private JsonNode readTree(Path copy, VersionedArtifact version) {
+    try {
+      return metrics.timeIO(RunMetrics.Stage.PARSE, () -> MAPPER.readTree(copy.toFile()));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to read swagger from: " + scanner.getVersionUri(version), e);
+    }
+  }
+
+  /**
+   * Snapshots are local file paths, nexus versions are downloaded over the transport
+   *
+   * @param uri        the location of the swagger
+   * @param revalidate true if the content can change, so the transport should check for a newer copy
+   * @return the swagger content
+   * @throws IOException if the swagger can't be read
+   */
+  private InputStream open(String uri, boolean revalidate) throws IOException {
+    if (uri.startsWith("http://") || uri.startsWith("https://")) {
+      TransportResponse response = transport.get(TransportRequest.builder().uri(uri).revalidate(revalidate).build());
+      if (response.getStatus() >= 400) {
+        response.getBody().close();
+        throw new IOException(String.format("Failed to download %s (%s)", uri, response.getStatus()));
+      }
+      return new CountingInputStream(response.getBody());
+    }
+    return uri.contains("://")
+      ? new CountingInputStream(new URL(uri).openStream())
+      : Files.newInputStream(Paths.get(uri));
+  }
+
+  /**
+   * Counts the bytes read from a download into the metrics
+   */
+  private class CountingInputStream extends FilterInputStream {
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = super.read();
+      if (read >= 0) {
+        metrics.count(RunMetrics.Counter.BYTES_FETCHED);
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        metrics.count(RunMetrics.Counter.BYTES_FETCHED, read);
+      }
+      return read;
+    }
+  }
+}
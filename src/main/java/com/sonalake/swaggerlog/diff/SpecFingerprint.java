@@ -0,0 +1,98 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * A canonical hash of the structure of a swagger: if two specs have the same fingerprint there is nothing for
+ * the diff to find, so the diff can be skipped.
+ * <p>
+ * The spec is hashed as JSON with its object keys sorted, so key order doesn't matter. The {@code info.version}
+ * is left out, as it's different in every release, and descriptions can be left out too.
+ */
+final class SpecFingerprint {
+  private static final String DESCRIPTION = "description";
+  private static final String INFO = "info";
+  private static final String VERSION = "version";
+
+  private final MessageDigest digest;
+  private final boolean ignoreDescriptions;
+
+  private SpecFingerprint(boolean ignoreDescriptions) {
+    try {
+      this.digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    this.ignoreDescriptions = ignoreDescriptions;
+  }
+
+  /**
+   * @param spec               the parsed swagger
+   * @param ignoreDescriptions true if descriptions should be left out of the fingerprint
+   * @return the fingerprint, as a hex string
+   */
+  static String of(JsonNode spec, boolean ignoreDescriptions) {
+    SpecFingerprint fingerprint = new SpecFingerprint(ignoreDescriptions);
+    fingerprint.update(spec, true, false);
+    return format("%064x", new BigInteger(1, fingerprint.digest.digest()));
+  }
+
+  /**
+   * @param node   the node to add to the hash
+   * @param isRoot true if this is the spec itself
+   * @param isInfo true if this is the spec's info block
+   */
+  private void update(JsonNode node, boolean isRoot, boolean isInfo) {
+    if (node.isObject()) {
+      List<String> names = new ArrayList<>();
+      node.fieldNames().forEachRemaining(names::add);
+      Collections.sort(names);
+
+      update("{");
+      for (String name : names) {
+        JsonNode value = node.get(name);
+        if (isIgnored(name, value, isInfo)) {
+          continue;
+        }
+        update(TextNode.valueOf(name).toString());
+        update(":");
+        update(value, false, isRoot && INFO.equals(name));
+        update(",");
+      }
+      update("}");
+    } else if (node.isArray()) {
+      update("[");
+      for (Iterator<JsonNode> items = node.elements(); items.hasNext(); ) {
+        update(items.next(), false, false);
+        update(",");
+      }
+      update("]");
+    } else {
+      // scalars are written as JSON, so strings are quoted and escaped
+      update(node.toString());
+    }
+  }
+
+  /**
+   * Only text descriptions are ignored, so a model property that happens to be called "description" still counts
+   */
+  private boolean isIgnored(String name, JsonNode value, boolean isInfo) {
+    return (ignoreDescriptions && DESCRIPTION.equals(name) && value.isTextual()) || (isInfo && VERSION.equals(name));
+  }
+
+  private void update(String token) {
+    digest.update(token.getBytes(StandardCharsets.UTF_8));
+  }
+}
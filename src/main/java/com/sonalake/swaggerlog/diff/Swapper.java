@@ -0,0 +1,275 @@
+package com.sonalake.swaggerlog.diff;
+
+import lombok.Builder;
+import lombok.Singular;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A configurable way to do bulk string replacements. The rules are compiled once into a single pattern, so every
+ * rule is applied in the one scan over the document, no matter how many rules there are.
+ * <p>
+ * Each rule is a regex and its replacement, which can refer to the rule's own groups as {@code $1}, {@code $12}
+ * or {@code ${name}}, read the same way as {@link Matcher#replaceAll(String)}. Where two rules could match at the
+ * same place, the first one configured wins. The rules all see the original document, so one rule's output isn't
+ * matched again by another.
+ * <p>
+ * A rule's back-references, e.g. {@code (\w)\1}, and its group names are its own too: they're rewritten to
+ * where the rule's groups are in the combined pattern, so two rules can use the same group name.
+ */
+class Swapper {
+
+  private final Pattern pattern;
+  private final List<Rule> rules = new ArrayList<>();
+
+  /**
+   * @param replacements regex to replacement, in the order they should be tried
+   */
+  @Builder
+  Swapper(@Singular Map<String, String> replacements) {
+    StringBuilder combined = new StringBuilder();
+    int group = 1;
+    for (Map.Entry<String, String> replacement : replacements.entrySet()) {
+      Rule rule = new Rule(group, "r" + (1 + rules.size()), replacement.getKey(), replacement.getValue());
+      rules.add(rule);
+      combined.append(combined.length() == 0 ? "" : "|").append('(').append(rule.regex).append(')');
+      // the rule's own groups follow the group that wraps it
+      group += 1 + rule.groupCount;
+    }
+    this.pattern = combined.length() == 0 ? null : Pattern.compile(combined.toString());
+  }
+
+  /**
+   * Given a string, apply all the given replacements
+   *
+   * @param rendered the document
+   * @return the document with every match replaced
+   */
+  String swap(String rendered) {
+    if (null == pattern) {
+      return rendered;
+    }
+    Matcher matcher = pattern.matcher(rendered);
+    if (!matcher.find()) {
+      return rendered;
+    }
+    StringBuilder updated = new StringBuilder(rendered.length());
+    int last = 0;
+    do {
+      updated.append(rendered, last, matcher.start());
+      ruleFor(matcher).appendTo(updated, matcher);
+      last = matcher.end();
+    } while (matcher.find());
+    return updated.append(rendered, last, rendered.length()).toString();
+  }
+
+  private Rule ruleFor(Matcher matcher) {
+    for (Rule rule : rules) {
+      if (null != matcher.group(rule.group)) {
+        return rule;
+      }
+    }
+    throw new IllegalStateException("No rule for match: " + matcher.group());
+  }
+
+  /**
+   * A rule's regex and replacement, and where its groups are in the combined pattern. The regex is rewritten, and
+   * the replacement parsed into its text and its references to the rule's groups, once.
+   */
+  private static class Rule {
+    private final int group;
+    private final String prefix;
+    private final int groupCount;
+    private final Set<String> names = new HashSet<>();
+    private final String regex;
+    private final List<Part> parts = new ArrayList<>();
+
+    /**
+     * @param group       the group that wraps the rule in the combined pattern
+     * @param prefix      what the rule's group names are prefixed with in the combined pattern, unique to the rule
+     * @param regex       the rule's own regex
+     * @param replacement the replacement, with escapes and group references as {@link Matcher#replaceAll(String)}
+     */
+    Rule(int group, String prefix, String regex, String replacement) {
+      this.group = group;
+      this.prefix = prefix;
+      this.groupCount = Pattern.compile(regex).matcher("").groupCount();
+      this.regex = rewrite(regex);
+      StringBuilder text = new StringBuilder();
+      int i = 0;
+      while (i < replacement.length()) {
+        char next = replacement.charAt(i++);
+        if ('\\' == next) {
+          if (i == replacement.length()) {
+            throw new IllegalArgumentException("Character to be escaped is missing in replacement: " + replacement);
+          }
+          text.append(replacement.charAt(i++));
+        } else if ('$' != next) {
+          text.append(next);
+        } else {
+          addText(text);
+          i = addReference(replacement, i, groupCount);
+        }
+      }
+      addText(text);
+    }
+
+    /**
+     * Offset the numbered back-references, and prefix the group names, so they're the rule's own in the combined
+     * pattern. The regex has already compiled on its own, so it's well formed. Quoted text and character classes
+     * are copied as they are, there are no back-references or groups in them.
+     */
+    private String rewrite(String regex) {
+      StringBuilder rewritten = new StringBuilder(regex.length() + 16);
+      int classDepth = 0;
+      int opened = 0;
+      int i = 0;
+      while (i < regex.length()) {
+        char next = regex.charAt(i);
+        if ('\\' == next) {
+          char escaped = regex.charAt(i + 1);
+          if ('Q' == escaped) {
+            int end = regex.indexOf("\\E", i + 2);
+            end = end < 0 ? regex.length() : end + 2;
+            rewritten.append(regex, i, end);
+            i = end;
+          } else if (0 == classDepth && escaped >= '1' && escaped <= '9') {
+            i = backReference(regex, i + 1, opened, rewritten);
+          } else if (0 == classDepth && 'k' == escaped) {
+            int end = regex.indexOf('>', i);
+            rewritten.append("\\k<").append(prefix).append(regex, i + 3, end + 1);
+            i = end + 1;
+          } else {
+            rewritten.append(next).append(escaped);
+            i += 2;
+          }
+        } else if ('[' == next) {
+          classDepth++;
+          rewritten.append(next);
+          i++;
+        } else if (']' == next && classDepth > 0) {
+          classDepth--;
+          rewritten.append(next);
+          i++;
+        } else if (0 == classDepth && '(' == next && isNamedGroup(regex, i)) {
+          int end = regex.indexOf('>', i);
+          names.add(regex.substring(i + 3, end));
+          rewritten.append("(?<").append(prefix).append(regex, i + 3, end + 1);
+          opened++;
+          i = end + 1;
+        } else {
+          if (0 == classDepth && '(' == next && !regex.startsWith("?", i + 1)) {
+            opened++;
+          }
+          rewritten.append(next);
+          i++;
+        }
+      }
+      return rewritten.toString();
+    }
+
+    /**
+     * A back-reference takes as many digits as make a group that's already been opened, as {@link Pattern} reads
+     * it. It's wrapped so any digits that follow it aren't read as part of the offset reference.
+     *
+     * @return where the regex continues after the reference
+     */
+    private int backReference(String regex, int start, int opened, StringBuilder rewritten) {
+      int reference = Character.digit(regex.charAt(start), 10);
+      int i = start + 1;
+      for (; i < regex.length(); i++) {
+        int digit = Character.digit(regex.charAt(i), 10);
+        if (digit < 0 || reference * 10 + digit > opened) {
+          break;
+        }
+        reference = reference * 10 + digit;
+      }
+      rewritten.append("(?:\\").append(group + reference).append(')');
+      return i;
+    }
+
+    private static boolean isNamedGroup(String regex, int start) {
+      return regex.startsWith("(?<", start) && start + 3 < regex.length()
+        && Character.isLetter(regex.charAt(start + 3));
+    }
+
+    void appendTo(StringBuilder target, Matcher matcher) {
+      for (Part part : parts) {
+        part.appendTo(target, matcher);
+      }
+    }
+
+    private void addText(StringBuilder text) {
+      if (text.length() > 0) {
+        String literal = text.toString();
+        parts.add((target, matcher) -> target.append(literal));
+        text.setLength(0);
+      }
+    }
+
+    /**
+     * A named reference is to one of the rule's own named groups, which are prefixed in the combined pattern. A
+     * numbered reference takes as many digits as still make one of the rule's groups, so {@code $12} is group 1
+     * followed by a 2 if the rule only has one group.
+     *
+     * @return where the replacement continues after the reference
+     */
+    private int addReference(String replacement, int start, int groupCount) {
+      if (start == replacement.length()) {
+        throw new IllegalArgumentException("Group index is missing in replacement: " + replacement);
+      }
+      if ('{' == replacement.charAt(start)) {
+        int end = replacement.indexOf('}', start);
+        if (end < 0) {
+          throw new IllegalArgumentException("Group name is missing a trailing '}' in replacement: " + replacement);
+        }
+        String name = replacement.substring(start + 1, end);
+        if (name.isEmpty()) {
+          throw new IllegalArgumentException("Group name is empty in replacement: " + replacement);
+        }
+        if (!names.contains(name)) {
+          throw new IllegalArgumentException("No group with name {" + name + "} for replacement: " + replacement);
+        }
+        String inCombined = prefix + name;
+        parts.add((target, matcher) -> appendGroup(target, matcher.group(inCombined)));
+        return end + 1;
+      }
+
+      int i = start;
+      int reference = Character.digit(replacement.charAt(i), 10);
+      if (reference < 0) {
+        throw new IllegalArgumentException("Illegal group reference in replacement: " + replacement);
+      }
+      if (reference > groupCount) {
+        throw new IllegalArgumentException("No group " + reference + " for replacement: " + replacement);
+      }
+      for (i++; i < replacement.length(); i++) {
+        int digit = Character.digit(replacement.charAt(i), 10);
+        if (digit < 0 || reference * 10 + digit > groupCount) {
+          break;
+        }
+        reference = reference * 10 + digit;
+      }
+      int inCombined = group + reference;
+      parts.add((target, matcher) -> appendGroup(target, matcher.group(inCombined)));
+      return i;
+    }
+
+    private static void appendGroup(StringBuilder target, String value) {
+      target.append(null == value ? "" : value);
+    }
+  }
+
+  /**
+   * Either some of the replacement's text, or one of its group references
+   */
+  private interface Part {
+    void appendTo(StringBuilder target, Matcher matcher);
+  }
+}
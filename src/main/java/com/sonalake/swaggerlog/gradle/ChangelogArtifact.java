@@ -0,0 +1,47 @@
+package com.sonalake.swaggerlog.gradle;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One of the artifacts in the extension's {@code artifacts} container. Anything not set here, such as the nexus
+ * home, is taken from the extension itself.
+ */
+@RequiredArgsConstructor
+@Getter
+@Setter
+@ToString
+public class ChangelogArtifact {
+
+  /**
+   * The name of the definition, the changelog is written to a subdirectory of the target directory with this name
+   */
+  private final String name;
+
+  /**
+   * Identifies the artifact's group in nexus
+   */
+  private String groupId;
+
+  /**
+   * Identifies the artifact, within the group, in nexus
+   */
+  private String artifactId;
+
+  /**
+   * The classifier id - defaults to nothing
+   */
+  private String classifier;
+
+  /**
+   * The repository id - defaults to the extension's repository
+   */
+  private String repositoryId;
+
+  /**
+   * Path to the optional shapshot version file for this artifact
+   */
+  private String snapshotVersionFile;
+}
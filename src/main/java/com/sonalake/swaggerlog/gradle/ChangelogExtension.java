@@ -1,14 +1,27 @@
 package com.sonalake.swaggerlog.gradle;
 
 import com.sonalake.swaggerlog.config.Artifact;
+import com.sonalake.swaggerlog.config.Cache;
 import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.config.PreReleasePolicy;
+import com.sonalake.swaggerlog.config.RendererType;
+import com.sonalake.swaggerlog.config.RollupMode;
 import com.sonalake.swaggerlog.config.Target;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.gradle.api.Action;
+import org.gradle.api.NamedDomainObjectContainer;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static java.util.Optional.ofNullable;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * Defines the changelog extension for the gradle plugin
@@ -30,7 +43,7 @@ public class ChangelogExtension {
   private String artifactId;
 
   /**
-   * The base URL for the nexus repository
+   * The base URL for the nexus repository - this, or the local repository, must be set
    */
   private String nexusHome;
 
@@ -55,6 +68,17 @@ public class ChangelogExtension {
    */
   private Integer baseChapterLevel;
 
+  /**
+   * How the diff files are rendered: {@code markdown} (the default) renders them as markdown and converts that to
+   * asciidoc, {@code asciidoc} writes them directly
+   */
+  private String renderer;
+
+  /**
+   * Extra post-processing rules for the diff files, regex to replacement. They're all applied in a single pass
+   */
+  private Map<String, String> replacements;
+
   /**
    * Path to the optional shapshot version file. This is the current, not as-yet released swagger.
    * <p>
@@ -64,18 +88,185 @@ public class ChangelogExtension {
 
   private Boolean isNexusVersion3;
 
+  /**
+   * If set, the versions are found in this maven-layout directory, e.g. ~/.m2/repository, instead of in nexus
+   */
+  private String localRepository;
+
+  /**
+   * If true, the released swaggers are resolved through gradle, from the project's repositories, instead of
+   * being downloaded by the plugin
+   */
+  private Boolean resolveWithGradle;
+
+  /**
+   * If set, only releases at or above this version are in the changelog
+   */
+  private String minVersion;
+
+  /**
+   * If set, only releases at or below this version are in the changelog
+   */
+  private String maxVersion;
+
+  /**
+   * If set, only this many of the latest releases are in the changelog
+   */
+  private Integer lastReleases;
+
+  /**
+   * What's done with pre-releases: releases-only, collapse or against-base - defaults to releases-only
+   */
+  private String preReleases;
+
+  /**
+   * Diff only the last release of each line: none, minor or major - defaults to none, every release is diffed
+   */
+  private String rollup;
+
+  /**
+   * If true, and the releases are rolled up, each diff lists the releases that were folded into it
+   */
+  private Boolean listFoldedVersions;
+
+  /**
+   * How many version steps can be diffed at the same time - defaults to one step at a time
+   */
+  private Integer parallelism;
+
+  /**
+   * How many requests can be in flight to nexus at the same time
+   */
+  private Integer maxConcurrentRequests;
+
+  /**
+   * The directory in which released swaggers are cached between runs - defaults to a directory in the
+   * gradle user home. Set this to null to turn off the cache.
+   */
+  private String cacheDir;
+
+  /**
+   * The maximum size of the swagger cache, once it grows past this the least recently used swaggers are removed
+   */
+  private Long cacheSizeMb;
+
+  /**
+   * If true, only the steps that weren't rendered by a previous run (and the snapshot step) are generated
+   */
+  private Boolean incremental;
+
+  /**
+   * If true, a step where the specs only differ in their descriptions is skipped without diffing
+   */
+  private Boolean ignoreDescriptions;
+
+  /**
+   * If set, the steps are memory-bounded: only the specs of the steps being processed are held, and the number of
+   * steps processed at once is limited so their estimated heap use stays within this many MB. This only caps the
+   * parallelism, it never adds to it
+   */
+  private Long heapBudgetMb;
+
+  /**
+   * How the changelogs are generated: {@code none} (the default), {@code classloader} or {@code process} run
+   * one work item per artifact on gradle's worker API with that isolation, {@code inline} runs them on the
+   * task's own thread
+   */
+  private String workerIsolation;
+
+  /**
+   * More artifacts to generate changelogs for in the same run, each into its own subdirectory of the target directory
+   */
+  private NamedDomainObjectContainer<ChangelogArtifact> artifacts;
+
   public String getRepositoryId() {
     return repositoryId == null ? "releases" : repositoryId;
   }
 
+  /**
+   * Configure the extra artifacts
+   *
+   * @param action the configuration for the artifacts container
+   */
+  public void artifacts(Action<? super NamedDomainObjectContainer<ChangelogArtifact>> action) {
+    action.execute(artifacts);
+  }
+
+  /**
+   * Build the configs for every changelog: the extension's own artifact (unless only the container is used),
+   * and one for each artifact in the container, in name order
+   *
+   * @return the configs
+   */
+  List<Config> buildConfigs() {
+    List<Config> configs = new ArrayList<>();
+    boolean hasArtifacts = null != artifacts && !artifacts.isEmpty();
+    if (!hasArtifacts || isNotBlank(getGroupId()) || isNotBlank(getArtifactId())) {
+      configs.add(buildConfig());
+    }
+    if (hasArtifacts) {
+      artifacts.forEach(artifact -> configs.add(buildConfig(artifact)));
+    }
+    return configs;
+  }
+
   Config buildConfig() {
-    return Config.builder()
-      .nexusHome(getNexusHome())
+    return configBuilder()
       .repositoryId(getRepositoryId())
-      .target(buildTarget())
+      .target(buildTarget(getTargetdir()))
       .snapshotVersionFile(getSnapshotVersionFile())
       .artifact(buildArtifact())
+      .build();
+  }
+
+  private Config buildConfig(ChangelogArtifact artifact) {
+    return configBuilder()
+      .repositoryId(ofNullable(artifact.getRepositoryId()).orElse(getRepositoryId()))
+      .target(buildTarget(Paths.get(getTargetdir(), artifact.getName()).toString()))
+      .snapshotVersionFile(artifact.getSnapshotVersionFile())
+      .artifact(Artifact.builder()
+        .groupId(artifact.getGroupId())
+        .artifactId(artifact.getArtifactId())
+        .classifier(artifact.getClassifier())
+        .build())
+      .build();
+  }
+
+  WorkerIsolation buildWorkerIsolation() {
+    return WorkerIsolation.of(getWorkerIsolation());
+  }
+
+  /**
+   * The settings shared by every artifact
+   */
+  private Config.ConfigBuilder configBuilder() {
+    if (isBlank(getNexusHome()) && isBlank(localRepository)) {
+      throw new IllegalArgumentException("Either nexusHome or localRepository must be set");
+    }
+    return Config.builder()
+      .nexusHome(getNexusHome())
       .isVersion3(Boolean.TRUE.equals(isNexusVersion3))
+      .localRepository(localRepository)
+      .minVersion(minVersion)
+      .maxVersion(maxVersion)
+      .lastReleases(ofNullable(lastReleases).orElse(0))
+      .preReleases(PreReleasePolicy.of(preReleases))
+      .rollup(RollupMode.of(rollup))
+      .parallelism(ofNullable(parallelism).orElse(Config.DEFAULT_PARALLELISM))
+      .maxConcurrentRequests(ofNullable(maxConcurrentRequests).orElse(Config.DEFAULT_MAX_CONCURRENT_REQUESTS))
+      .cache(buildCache())
+      .incremental(Boolean.TRUE.equals(incremental))
+      .ignoreDescriptions(Boolean.TRUE.equals(ignoreDescriptions))
+      .heapBudgetMb(ofNullable(heapBudgetMb).orElse(0L));
+  }
+
+  private Cache buildCache() {
+    if (isBlank(getCacheDir())) {
+      return null;
+    }
+    return Cache.builder()
+      .directory(getCacheDir())
+      .maxSizeMb(ofNullable(cacheSizeMb).orElse(Cache.DEFAULT_MAX_SIZE_MB))
       .build();
   }
 
@@ -87,11 +278,14 @@ public class ChangelogExtension {
       .build();
   }
 
-  private Target buildTarget() {
+  private Target buildTarget(String targetdir) {
     return Target
       .builder()
-      .targetdir(getTargetdir())
+      .targetdir(targetdir)
       .baseChapterLevel(ofNullable(baseChapterLevel).orElse(Target.DEFAULT_CHAPTER_LEVEL))
+      .renderer(RendererType.of(renderer))
+      .replacements(ofNullable(replacements).orElse(Map.of()))
+      .listFoldedVersions(Boolean.TRUE.equals(listFoldedVersions))
       .build();
   }
 }
@@ -5,6 +5,8 @@ import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 
 import javax.annotation.Nonnull;
+import java.io.File;
+
 /**
  * Defines the changelog gradle plugin
  */
@@ -13,19 +15,24 @@ public class ChangelogPlugin implements Plugin<Project> {
 
   static final String EXTENSION_NAME = "swaggerChangeLog";
   static final String TASK_NAME = "generateChangeLog";
+  static final String CACHE_DIR = "caches/swagger-changelog";
 
   /**
    * Applies the {@link ChangelogExtension} and {@link ChangelogTask} to the project.
    *
-   * The task will be named {@value #TASK_NAME} and will look for configs in {@value #EXTENSION_NAME}
+   * The task will be named {@value #TASK_NAME} and will look for configs in {@value #EXTENSION_NAME}. Released
+   * swaggers will be cached in {@value #CACHE_DIR} under the gradle user home, unless configured otherwise. More
+   * artifacts can be added to the extension's {@code artifacts} container, and are generated by the same task.
    * @param project the project for which this plugin is being defined
    */
   @Override
   public void apply(@Nonnull Project project) {
     log.debug("Preparing");
 
-    project.getExtensions().create(EXTENSION_NAME, ChangelogExtension.class);
-    project.getTasks().register(TASK_NAME, ChangelogTask.class, project);
+    ChangelogExtension extension = project.getExtensions().create(EXTENSION_NAME, ChangelogExtension.class);
+    extension.setCacheDir(new File(project.getGradle().getGradleUserHomeDir(), CACHE_DIR).getAbsolutePath());
+    extension.setArtifacts(project.container(ChangelogArtifact.class));
+    project.getTasks().register(TASK_NAME, ChangelogTask.class);
 
     log.debug("Registered");
   }
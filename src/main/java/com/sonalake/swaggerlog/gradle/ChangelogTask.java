@@ -1,54 +1,350 @@
 package com.sonalake.swaggerlog.gradle;
 
+import com.sonalake.swaggerlog.cache.RevalidatingTransport;
 import com.sonalake.swaggerlog.config.Config;
 import com.sonalake.swaggerlog.diff.LogGenerator;
-import lombok.Getter;
+import com.sonalake.swaggerlog.diff.SharedResources;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import com.sonalake.swaggerlog.nexus.formats.VersionFinder;
 import lombok.extern.slf4j.Slf4j;
 import org.gradle.api.DefaultTask;
-import org.gradle.api.Project;
+import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
 
 import javax.inject.Inject;
+import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static java.util.Optional.ofNullable;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 
 
 /**
- * Defines the changelog task for the gradle plugin
+ * Defines the changelog task for the gradle plugin.
+ * <p>
+ * The task's inputs are the extension's settings, the content of the snapshot file, the versions that are
+ * published in nexus, and the content of any swaggers in the local repository, so it's up-to-date (or can be taken
+ * from the build cache) until a new version is published or the snapshot changes.
+ * <p>
+ * Every artifact in the extension is generated by the one task execution, sharing the same connection pool,
+ * swagger cache and workers. Unless configured to run inline, each artifact is a work item on gradle's worker
+ * API, so the task doesn't hold up the rest of a parallel build.
  */
 @Slf4j
-@Getter
-public class ChangelogTask extends DefaultTask {
+@CacheableTask
+public abstract class ChangelogTask extends DefaultTask {
+
+  /**
+   * The versions found in nexus while working out if the task is up-to-date, so the search isn't run twice. These
+   * are keyed by the search that found them.
+   */
+  private Map<String, List<VersionedArtifact>> publishedVersions;
+
+  private static final String LOCAL_REPOSITORY = "local";
 
   @Input
-  private final Project project;
+  @Optional
+  public String getGroupId() {
+    return getTaskConfig().getGroupId();
+  }
 
-  @Inject
-  public ChangelogTask(Project project) {
-    this.project = project;
+  @Input
+  @Optional
+  public String getArtifactId() {
+    return getTaskConfig().getArtifactId();
+  }
+
+  @Input
+  @Optional
+  public String getClassifier() {
+    return getTaskConfig().getClassifier();
+  }
+
+  @Input
+  @Optional
+  public String getNexusHome() {
+    return getTaskConfig().getNexusHome();
+  }
+
+  @Input
+  @Optional
+  public String getRepositoryId() {
+    return getTaskConfig().getRepositoryId();
+  }
+
+  @Input
+  public boolean isNexusVersion3() {
+    return Boolean.TRUE.equals(getTaskConfig().getIsNexusVersion3());
+  }
+
+  /**
+   * Where the directory is doesn't change the changelog, the swaggers found in it are tracked instead
+   */
+  @Internal
+  public String getLocalRepository() {
+    return getTaskConfig().getLocalRepository();
+  }
+
+  @Input
+  public boolean isResolveWithGradle() {
+    return Boolean.TRUE.equals(getTaskConfig().getResolveWithGradle());
+  }
+
+  @Input
+  @Optional
+  public String getMinVersion() {
+    return getTaskConfig().getMinVersion();
+  }
+
+  @Input
+  @Optional
+  public String getMaxVersion() {
+    return getTaskConfig().getMaxVersion();
+  }
+
+  @Input
+  public int getLastReleases() {
+    return ofNullable(getTaskConfig().getLastReleases()).orElse(0);
+  }
+
+  @Input
+  public String getPreReleases() {
+    return getTaskConfig().buildConfig().getPreReleases().name();
+  }
+
+  @Input
+  public String getRollup() {
+    return getTaskConfig().buildConfig().getRollup().name();
+  }
+
+  @Input
+  public int getBaseChapterLevel() {
+    return getTaskConfig().buildConfig().getTarget().getBaseChapterLevel();
+  }
+
+  @Input
+  public String getRenderer() {
+    return getTaskConfig().buildConfig().getTarget().getRenderer().name();
+  }
+
+  @Input
+  public Map<String, String> getReplacements() {
+    return getTaskConfig().buildConfig().getTarget().getReplacements();
+  }
+
+  @Input
+  public boolean isListFoldedVersions() {
+    return Boolean.TRUE.equals(getTaskConfig().getListFoldedVersions());
+  }
+
+  @Input
+  public boolean isIncremental() {
+    return Boolean.TRUE.equals(getTaskConfig().getIncremental());
+  }
+
+  @Input
+  public boolean isIgnoreDescriptions() {
+    return Boolean.TRUE.equals(getTaskConfig().getIgnoreDescriptions());
+  }
+
+  /**
+   * The snapshot is tracked by its content, not where it is
+   */
+  @InputFile
+  @Optional
+  @PathSensitive(PathSensitivity.NONE)
+  public File getSnapshotVersionFile() {
+    return ofNullable(getTaskConfig().getSnapshotVersionFile()).map(getProject()::file).orElse(null);
+  }
+
+  /**
+   * The artifacts in the extension's container, each as {@code name=group:artifact:classifier@repository}
+   */
+  @Input
+  public List<String> getArtifacts() {
+    return ofNullable(getTaskConfig().getArtifacts()).map(artifacts -> artifacts.stream()
+      .map(a -> String.format("%s=%s:%s:%s@%s",
+        a.getName(), a.getGroupId(), a.getArtifactId(), ofNullable(a.getClassifier()).orElse(""),
+        ofNullable(a.getRepositoryId()).orElse(getRepositoryId())))
+      .collect(Collectors.toList()))
+      .orElse(List.of());
+  }
+
+  /**
+   * The snapshots of the artifacts in the extension's container
+   */
+  @InputFiles
+  @Optional
+  @PathSensitive(PathSensitivity.NAME_ONLY)
+  public List<File> getArtifactSnapshotFiles() {
+    return ofNullable(getTaskConfig().getArtifacts()).map(artifacts -> artifacts.stream()
+      .map(ChangelogArtifact::getSnapshotVersionFile)
+      .filter(Objects::nonNull)
+      .map(getProject()::file)
+      .collect(Collectors.toList()))
+      .orElse(List.of());
+  }
+
+  /**
+   * The versions currently published in nexus - a newly published version makes the task out of date
+   *
+   * @return the published versions for each search, in a stable order
+   */
+  @Input
+  public Map<String, List<String>> getPublishedVersions() {
+    if (null == publishedVersions) {
+      publishedVersions = new LinkedHashMap<>();
+      for (Config config : getTaskConfig().buildConfigs()) {
+        publishedVersions.computeIfAbsent(searchKey(config),
+          key -> new VersionFinder(RevalidatingTransport.forConfig(config)).findVersions(config));
+      }
+    }
+    Map<String, List<String>> versions = new LinkedHashMap<>();
+    publishedVersions.forEach((key, found) -> versions.put(key, found.stream()
+      .map(VersionedArtifact::getVersion)
+      .filter(Objects::nonNull)
+      .sorted()
+      .collect(Collectors.toList())));
+    return versions;
+  }
+
+  /**
+   * The swaggers in a local repository are read where they are, so a release that's installed again, with a
+   * different swagger, makes the task out of date
+   *
+   * @return the swaggers found in the local repository, if there is one
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.NONE)
+  public List<File> getLocalRepositorySwaggers() {
+    if (isBlank(getLocalRepository())) {
+      return List.of();
+    }
+    getPublishedVersions();
+    return publishedVersions.values().stream()
+      .flatMap(List::stream)
+      .map(VersionedArtifact::getDownloadFrom)
+      .filter(Objects::nonNull)
+      .sorted()
+      .map(File::new)
+      .collect(Collectors.toList());
+  }
+
+  @OutputDirectory
+  public File getTargetdir() {
+    return getProject().file(getTaskConfig().getTargetdir());
   }
 
+  @Inject
+  protected abstract WorkerExecutor getWorkerExecutor();
+
   /**
-   * Generates the actual changelog
+   * Generates the actual changelogs, one per artifact
    */
   @TaskAction
   public void generateChangelog() {
-    ChangelogExtension taskConfig =
-      ofNullable(getProject().getExtensions().findByType(ChangelogExtension.class))
-        .orElseThrow(() -> new IllegalArgumentException("No config specified for task"));
+    ChangelogExtension taskConfig = getTaskConfig();
+    WorkerIsolation isolation = taskConfig.buildWorkerIsolation();
 
     log.debug("Using config: {}", taskConfig);
-    try {
-      buildLogGenerator(taskConfig.buildConfig()).generateChangeLog();
+    List<Config> configs = taskConfig.buildConfigs().stream()
+      .map(this::resolvePaths)
+      .map(config -> config.toBuilder()
+        .knownVersions(findKnownVersions(config))
+        .build())
+      .collect(Collectors.toList());
+
+    if (WorkerIsolation.INLINE == isolation) {
+      generateInline(taskConfig, configs);
+    } else {
+      WorkQueue queue = isolation.queueFor(getWorkerExecutor());
+      String runId = UUID.randomUUID().toString();
+      configs.forEach(config -> queue.submit(GenerateChangelogAction.class, parameters -> {
+        parameters.getConfig().set(config);
+        parameters.getRunId().set(runId);
+      }));
+      queue.await();
+    }
+  }
+
+  /**
+   * The paths in the extension are relative to the project, so they're resolved the same way as the task's
+   * inputs and outputs, and the generators write to the directory gradle is tracking
+   */
+  private Config resolvePaths(Config config) {
+    return config.toBuilder()
+      .target(config.getTarget().toBuilder()
+        .targetdir(getProject().file(config.getTarget().getTargetdir()).getAbsolutePath())
+        .build())
+      .snapshotVersionFile(ofNullable(config.getSnapshotVersionFile())
+        .map(getProject()::file)
+        .map(File::getAbsolutePath)
+        .orElse(null))
+      .build();
+  }
+
+  /**
+   * Generate every changelog on the task's thread
+   */
+  private void generateInline(ChangelogExtension taskConfig, List<Config> configs) {
+    try (SharedResources resources = SharedResources.forConfig(taskConfig.buildConfig())) {
+      for (Config config : configs) {
+        buildLogGenerator(config, resources).generateChangeLog();
+      }
     } catch (IOException e) {
       log.error("Failed to generate log from config {}", taskConfig, e);
       throw new IllegalArgumentException("Failed to generate log from config", e);
     }
   }
 
-  protected LogGenerator buildLogGenerator(Config config) {
-    return LogGenerator.builder().config(config).build();
+  /**
+   * When resolving with gradle, the swaggers in the history are resolved here, on the task's thread, and the
+   * generators read them from where gradle put them
+   *
+   * @param config the config for one artifact
+   * @return the versions published for the artifact, or null if they haven't been found yet
+   */
+  private List<VersionedArtifact> findKnownVersions(Config config) {
+    List<VersionedArtifact> published = null == publishedVersions ? null : publishedVersions.get(searchKey(config));
+    if (null == published || !isResolveWithGradle()) {
+      return published;
+    }
+    return new GradleSwaggerResolver(getProject()).resolve(config, published);
+  }
+
+  protected LogGenerator buildLogGenerator(Config config, SharedResources resources) {
+    return LogGenerator.builder().config(config).resources(resources).build();
+  }
+
+  /**
+   * Artifacts with the same coordinates, in the same repository, will have the same published versions. Every
+   * artifact shares the one local repository, so its path isn't part of the key.
+   */
+  private String searchKey(Config config) {
+    return String.format("%s:%s:%s@%s",
+      config.getArtifact().getGroupId(), config.getArtifact().getArtifactId(),
+      ofNullable(config.getArtifact().getClassifier()).orElse(""),
+      isBlank(config.getLocalRepository()) ? config.getRepositoryId() : LOCAL_REPOSITORY);
+  }
+
+  private ChangelogExtension getTaskConfig() {
+    return ofNullable(getProject().getExtensions().findByType(ChangelogExtension.class))
+      .orElseThrow(() -> new IllegalArgumentException("No config specified for task"));
   }
 }
@@ -0,0 +1,50 @@
+package com.sonalake.swaggerlog.gradle;
+
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.diff.LogGenerator;
+import com.sonalake.swaggerlog.diff.SharedResources;
+import lombok.extern.slf4j.Slf4j;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.IOException;
+
+/**
+ * A work item that generates the changelog for one artifact, so gradle can schedule the artifacts alongside
+ * its other work, within {@code --max-workers}.
+ */
+@Slf4j
+public abstract class GenerateChangelogAction implements WorkAction<GenerateChangelogAction.Parameters> {
+
+  /**
+   * The parameters for the work item
+   */
+  public interface Parameters extends WorkParameters {
+    /**
+     * @return the config for the artifact
+     */
+    Property<Config> getConfig();
+
+    /**
+     * @return identifies the task execution, so its work items can share resources
+     */
+    Property<String> getRunId();
+  }
+
+  @Override
+  public void execute() {
+    Config config = getParameters().getConfig().get();
+    String runId = getParameters().getRunId().get();
+
+    SharedResources resources = SharedResources.acquire(runId, config);
+    try {
+      LogGenerator.builder().config(config).resources(resources).build().generateChangeLog();
+    } catch (IOException e) {
+      log.error("Failed to generate log from config {}", config, e);
+      throw new IllegalArgumentException("Failed to generate log from config", e);
+    } finally {
+      SharedResources.release(runId);
+    }
+  }
+}
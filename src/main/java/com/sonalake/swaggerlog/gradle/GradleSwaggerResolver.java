@@ -0,0 +1,119 @@
+package com.sonalake.swaggerlog.gradle;
+
+import com.sonalake.swaggerlog.config.Artifact;
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.nexus.Scanner;
+import com.sonalake.swaggerlog.nexus.VersionStep;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.ArtifactCollection;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Downloads the released swaggers through gradle's dependency resolution, instead of over the plugin's own
+ * connections, so they come from the gradle cache if they're already there, and are checked by gradle's
+ * dependency verification if the build has it turned on. The swaggers are found in the project's repositories.
+ * <p>
+ * Only the versions in the history are resolved, so those that aren't selected are still never downloaded. A
+ * version that isn't in the project's repositories is downloaded by the plugin, as it would be without gradle,
+ * unless gradle is offline, when it fails the build instead. The versions themselves are still found by the
+ * plugin's search.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class GradleSwaggerResolver {
+  private final Project project;
+
+  /**
+   * @param config    the config for one artifact
+   * @param published the versions published for the artifact
+   * @return the published versions, with those in the history pointing at the files gradle resolved for them
+   */
+  List<VersionedArtifact> resolve(Config config, List<VersionedArtifact> published) {
+    Set<VersionedArtifact> needed = new HashSet<>();
+    List<VersionStep> history = Scanner.builder()
+      .config(config.toBuilder().knownVersions(published).build())
+      .build()
+      .getHistory();
+    for (VersionStep step : history) {
+      needed.add(step.getFrom());
+      needed.add(step.getTo());
+    }
+
+    List<VersionedArtifact> resolved = new ArrayList<>();
+    for (VersionedArtifact version : published) {
+      File swagger = needed.contains(version) && !version.isSnapshot()
+        ? swaggerIn(artifactView(config.getArtifact(), version.getVersion()))
+        : null;
+      if (null == swagger) {
+        resolved.add(version);
+        continue;
+      }
+      log.debug("Resolved {} to {}", version.getVersion(), swagger);
+      resolved.add(VersionedArtifact.builder()
+        .group(version.getGroup())
+        .artifact(version.getArtifact())
+        .version(version.getVersion())
+        .downloadFrom(swagger.getAbsolutePath())
+        .sha1(version.getSha1())
+        .build());
+    }
+    return resolved;
+  }
+
+  /**
+   * A dependency graph only has one version of a module, so a configuration with every version in it would only
+   * resolve the newest. Each version gets its own detached configuration, resolved one after the other, so the
+   * downloads aren't parallelised by gradle. The swagger is read through a lenient view, so a version that gradle
+   * can't find can still be downloaded by the plugin.
+   */
+  private ArtifactCollection artifactView(Artifact artifact, String version) {
+    Configuration configuration = project.getConfigurations().detachedConfiguration(
+      project.getDependencies().create(notation(artifact, version))
+    );
+    configuration.setTransitive(false);
+    return configuration.getIncoming().artifactView(view -> view.lenient(true)).getArtifacts();
+  }
+
+  /**
+   * In offline mode the plugin mustn't download anything itself, so a swagger that gradle can't resolve fails
+   * the build
+   *
+   * @return the swagger gradle resolved, or null if it couldn't, in which case the plugin downloads it itself
+   */
+  private File swaggerIn(ArtifactCollection view) {
+    Set<ResolvedArtifactResult> artifacts = view.getArtifacts();
+    if (artifacts.isEmpty()) {
+      if (project.getGradle().getStartParameter().isOffline()) {
+        IllegalArgumentException failed = new IllegalArgumentException(
+          "Failed to resolve swagger through gradle in offline mode: " + view.getFailures()
+        );
+        view.getFailures().forEach(failed::addSuppressed);
+        throw failed;
+      }
+      view.getFailures().forEach(failure -> log.warn("Failed to resolve swagger through gradle", failure));
+      return null;
+    }
+    return artifacts.iterator().next().getFile();
+  }
+
+  /**
+   * e.g. {@code com.sonalake:order-state-service:1.0.2:openapi@json}
+   */
+  private static String notation(Artifact artifact, String version) {
+    return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + version
+      + (isNotBlank(artifact.getClassifier()) ? ":" + artifact.getClassifier() : "")
+      + "@json";
+  }
+}
@@ -0,0 +1,66 @@
+package com.sonalake.swaggerlog.gradle;
+
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How the changelogs are generated: on the task's own thread, or as work items on gradle's worker API, with
+ * the given isolation.
+ */
+enum WorkerIsolation {
+  /**
+   * Everything is done on the task's thread
+   */
+  INLINE,
+
+  /**
+   * Work items run on gradle's worker threads, in the build's JVM and classloader
+   */
+  NONE,
+
+  /**
+   * Work items run on gradle's worker threads, in an isolated classloader
+   */
+  CLASSLOADER,
+
+  /**
+   * Work items run in a separate worker process, which keeps the swagger-diff classes out of the daemon's heap
+   */
+  PROCESS;
+
+  /**
+   * @param value the isolation as configured, case-insensitive
+   * @return the isolation, defaults to {@link #NONE}
+   */
+  static WorkerIsolation of(String value) {
+    if (null == value) {
+      return NONE;
+    }
+    return Arrays.stream(values())
+      .filter(isolation -> isolation.name().equals(value.toUpperCase(Locale.ENGLISH)))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException(String.format(
+        "Unknown worker isolation: %s, expected one of %s", value, Arrays.toString(values())
+      )));
+  }
+
+  /**
+   * @param executor the task's worker executor
+   * @return the queue to submit work items to
+   */
+  WorkQueue queueFor(WorkerExecutor executor) {
+    switch (this) {
+      case CLASSLOADER:
+        return executor.classLoaderIsolation();
+      case PROCESS:
+        return executor.processIsolation();
+      case NONE:
+        return executor.noIsolation();
+      default:
+        throw new IllegalArgumentException("Work items can't be queued with isolation: " + this);
+    }
+  }
+}
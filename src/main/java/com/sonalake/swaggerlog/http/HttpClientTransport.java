@@ -0,0 +1,83 @@
+package com.sonalake.swaggerlog.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A {@link Transport} built on the JDK's asynchronous {@link HttpClient}.
+ * <p>
+ * The client pools its connections, and will use HTTP/2 where nexus supports it, in which case concurrent
+ * requests are multiplexed over the same connection. The number of requests in flight is limited: a request
+ * holds its permit until its status and headers have arrived, and the body is then streamed to the caller.
+ */
+@Slf4j
+public class HttpClientTransport implements Transport {
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+  /**
+   * One transport per concurrency limit, so every changelog in the build shares the same connection pool
+   */
+  private static final Map<Integer, HttpClientTransport> SHARED = new ConcurrentHashMap<>();
+
+  private final HttpClient client;
+  private final Semaphore permits;
+
+  public HttpClientTransport(int maxConcurrentRequests) {
+    this.client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .connectTimeout(CONNECT_TIMEOUT)
+      .build();
+    this.permits = new Semaphore(Math.max(1, maxConcurrentRequests));
+  }
+
+  /**
+   * Get the transport shared by everything with this concurrency limit
+   *
+   * @param maxConcurrentRequests how many requests can be in flight at once
+   * @return the shared transport
+   */
+  public static HttpClientTransport shared(int maxConcurrentRequests) {
+    return SHARED.computeIfAbsent(maxConcurrentRequests, HttpClientTransport::new);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This will block the caller while the maximum number of requests are already in flight.
+   */
+  @Override
+  public CompletableFuture<TransportResponse> send(TransportRequest request) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(request.toUri()).GET();
+    request.getHeaders().forEach(builder::header);
+
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    }
+
+    log.debug("GET {}", request.toUri());
+    return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream())
+      .whenComplete((response, error) -> permits.release())
+      .thenApply(this::toResponse);
+  }
+
+  private TransportResponse toResponse(HttpResponse<InputStream> response) {
+    return TransportResponse.builder()
+      .status(response.statusCode())
+      .headers(response.headers().map())
+      .body(response.body())
+      .build();
+  }
+}
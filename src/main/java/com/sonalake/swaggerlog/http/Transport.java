@@ -0,0 +1,55 @@
+package com.sonalake.swaggerlog.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * How the plugin talks to nexus: both the version searches and the swagger downloads go through this.
+ */
+public interface Transport {
+
+  /**
+   * Send the request, without waiting for the response
+   *
+   * @param request the request to send
+   * @return the response, which completes once the status and headers have arrived
+   */
+  CompletableFuture<TransportResponse> send(TransportRequest request);
+
+  /**
+   * Send the request, and wait for the response
+   *
+   * @param request the request to send
+   * @return the response
+   * @throws IOException if the request could not be sent, or the response could not be read
+   */
+  default TransportResponse get(TransportRequest request) throws IOException {
+    return await(send(request));
+  }
+
+  /**
+   * Wait for a response that has already been sent
+   *
+   * @param response the pending response
+   * @return the response
+   * @throws IOException if the request failed
+   */
+  static TransportResponse await(CompletableFuture<TransportResponse> response) throws IOException {
+    try {
+      return response.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a response", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new IOException("Request failed", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.sonalake.swaggerlog.http;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A GET request to be sent over a {@link Transport}
+ */
+@Builder(toBuilder = true)
+@Getter
+@ToString
+public class TransportRequest {
+  /**
+   * The address, without any query string
+   */
+  private final String uri;
+
+  /**
+   * The query parameters, these are encoded when the request is sent. Any without a value are left out.
+   */
+  @Singular
+  private final Map<String, String> queryStrings;
+
+  @Singular
+  private final Map<String, String> headers;
+
+  /**
+   * If set, the response may be kept, and revalidated with a conditional GET the next time it's asked for
+   */
+  private final boolean revalidate;
+
+  /**
+   * @return the full URI, including the encoded query string
+   */
+  public URI toUri() {
+    String query = queryStrings.entrySet().stream()
+      .filter(e -> null != e.getValue())
+      .map(e -> encode(e.getKey()) + "=" + encode(e.getValue()))
+      .collect(Collectors.joining("&"));
+    if (query.isEmpty()) {
+      return URI.create(uri);
+    }
+    return URI.create(uri + (uri.contains("?") ? "&" : "?") + query);
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,38 @@
+package com.sonalake.swaggerlog.http;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The response to a {@link TransportRequest}. The body is streamed, and must be closed by the caller.
+ */
+@Builder
+@Getter
+@ToString(exclude = "body")
+public class TransportResponse {
+  private final int status;
+
+  /**
+   * The response headers, the names are case-insensitive
+   */
+  private final Map<String, List<String>> headers;
+
+  private final InputStream body;
+
+  /**
+   * @param name the header name, case-insensitive
+   * @return the first value of the header, if it was sent
+   */
+  public Optional<String> header(String name) {
+    return headers.entrySet().stream()
+      .filter(e -> e.getKey().equalsIgnoreCase(name))
+      .flatMap(e -> e.getValue().stream())
+      .findFirst();
+  }
+}
@@ -1,15 +1,16 @@
 package com.sonalake.swaggerlog.nexus;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mashape.unirest.http.HttpResponse;
+import com.sonalake.swaggerlog.cache.RevalidatingTransport;
 import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.http.Transport;
 import com.sonalake.swaggerlog.nexus.formats.VersionFinder;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Optional.ofNullable;
 
@@ -23,6 +24,16 @@ import static java.util.Optional.ofNullable;
 public class Scanner {
   private final Config config;
 
+  /**
+   * How to talk to nexus - if not set, the transport shared by the whole build is used
+   */
+  private final Transport transport;
+
+  /**
+   * If no transport was set, the one built for this scanner, it's only built once
+   */
+  private final AtomicReference<Transport> built = new AtomicReference<>();
+
   /**
    * Given the config, get the ordered history of diffable swaggers.
    *
@@ -30,13 +41,26 @@ public class Scanner {
    */
   public List<VersionStep> getHistory() {
     log.debug("Generating history now");
-    List<VersionedArtifact> artifacts = new VersionFinder().findVersions(config);
+    List<VersionedArtifact> artifacts = ofNullable(config.getKnownVersions())
+      .<List<VersionedArtifact>>map(ArrayList::new)
+      .orElseGet(() -> new VersionFinder(getTransport()).findVersions(config));
     appendSnapshotToHistory(artifacts);
-    SearchResults versions = SearchResults.builder().versions(artifacts).build();
+    SearchResults versions = SearchResults.builder()
+      .versions(artifacts)
+      .selection(VersionSelection.of(config))
+      .build();
 
     return versions.buildHistory();
   }
 
+  /**
+   * @return the transport used to talk to nexus
+   */
+  public Transport getTransport() {
+    return ofNullable(transport)
+      .orElseGet(() -> built.updateAndGet(t -> null == t ? RevalidatingTransport.forConfig(config) : t));
+  }
+
   /**
    * If there is a snapshot, then add it to the search results
    *
@@ -54,25 +78,6 @@ public class Scanner {
     });
   }
 
-  /**
-   * Parse the search restuls, and translate them into the SearchResults type
-   *
-   * @param search
-   * @return
-   */
-  private SearchResults parseSearchResults(HttpResponse<String> search) {
-    log.debug(search.getBody());
-
-    ObjectMapper mapper = new ObjectMapper();
-    final SearchResults versions;
-    try {
-      versions = mapper.readValue(search.getBody(), SearchResults.class);
-    } catch (IOException e) {
-      throw new IllegalArgumentException("Failed to parse results from nexus: " + config, e);
-    }
-    return versions;
-  }
-
   /**
    * Build the version UTI for downloading the swagger, for the given version
    *
@@ -1,15 +1,18 @@
 package com.sonalake.swaggerlog.nexus;
 
+import com.sonalake.swaggerlog.config.PreReleasePolicy;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
 import lombok.Singular;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static java.util.Optional.ofNullable;
+
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
@@ -18,36 +21,124 @@ class SearchResults {
 
   private List<VersionedArtifact> versions;
 
+  /**
+   * Which of the versions go into the history - if not set, all of them do
+   */
+  private VersionSelection selection;
+
 
   public List<VersionStep> buildHistory() {
+    VersionSelection selection = ofNullable(this.selection).orElse(VersionSelection.ALL);
+    PreReleasePolicy policy = selection.getPreReleasePolicy();
 
     // first, sort the versions by semver
-    List<VersionedArtifact> sortedVersions = versions.stream()
-      // remove any versions that aren't diffable
-      .filter(VersionedArtifact::isDiffable)
+    List<VersionedArtifact> allVersions = versions.stream()
+      // remove any versions that aren't diffable, or pre-releases if they're not wanted
+      .filter(v -> v.isDiffable() || (PreReleasePolicy.RELEASES_ONLY != policy && v.isPreRelease()))
       .sorted()
       .collect(Collectors.toList());
 
+    // the versions that are diffed one after another
+    List<VersionedArtifact> mainLine = new ArrayList<>();
+    for (int i = 0; i < allVersions.size(); i++) {
+      if (isInMainLine(policy, allVersions, i)) {
+        mainLine.add(allVersions.get(i));
+      }
+    }
+
+    // then keep only the versions that were asked for, so no others are ever downloaded
+    List<VersionedArtifact> inRange = selection.selectRange(mainLine);
+    List<VersionedArtifact> sortedVersions = selection.select(selection.rollUp(inRange));
+
+    List<VersionStep> steps = buildSteps(sortedVersions, inRange);
+    if (PreReleasePolicy.AGAINST_BASE == policy) {
+      steps.addAll(buildPreReleaseSteps(selection, allVersions, sortedVersions));
+      // each pre-release step goes in the history just before the step to its release
+      steps.sort(Comparator.comparing(VersionStep::getTo));
+    }
+    return steps;
+  }
+
+  /**
+   * Releases and snapshots are always in the main line. When pre-releases are collapsed, a pre-release is only in
+   * it if it's the latest for its version, and the version hasn't been released.
+   *
+   * @param policy      what's done with pre-releases
+   * @param allVersions every version, sorted, so a version's pre-releases are just before it
+   * @param index       the version to check
+   * @return true if the version is diffed against the versions either side of it
+   */
+  private static boolean isInMainLine(PreReleasePolicy policy, List<VersionedArtifact> allVersions, int index) {
+    VersionedArtifact version = allVersions.get(index);
+    if (version.isDiffable()) {
+      return true;
+    }
+    return PreReleasePolicy.COLLAPSE == policy
+      && (index + 1 == allVersions.size() || !version.hasSameCore(allVersions.get(index + 1)));
+  }
+
+  /**
+   * @param sortedVersions the versions to diff, in order
+   * @param inRange        every version in the range, so any rolled up between two steps can be listed
+   * @return a step between each version and the next
+   */
+  private static List<VersionStep> buildSteps(List<VersionedArtifact> sortedVersions,
+                                              List<VersionedArtifact> inRange) {
     // need at least two versions to have a history
     if (sortedVersions.size() < 2) {
-      return Collections.emptyList();
+      return new ArrayList<>();
     }
 
     // now build up a result from the remaining elements
-    VersionedArtifact current = sortedVersions.remove(0);
+    VersionedArtifact current = sortedVersions.get(0);
+
+    int position = inRange.indexOf(current) + 1;
 
     List<VersionStep> steps = new ArrayList<>();
-    for (VersionedArtifact nextVersion : sortedVersions) {
-      steps.add(
-        VersionStep.builder()
-          .from(current)
-          .to(nextVersion)
-          .build()
-      );
+    for (VersionedArtifact nextVersion : sortedVersions.subList(1, sortedVersions.size())) {
+      VersionStep.VersionStepBuilder step = VersionStep.builder()
+        .from(current)
+        .to(nextVersion);
+      // anything between the two versions was rolled up into this step
+      while (position < inRange.size() && !inRange.get(position).equals(nextVersion)) {
+        step.foldedVersion(inRange.get(position++));
+      }
+      steps.add(step.build());
       current = nextVersion;
+      position++;
     }
     return steps;
   }
 
-
+  /**
+   * Each selected pre-release is diffed against its base: the latest selected release before it. A pre-release
+   * with no selected release before it isn't diffed.
+   *
+   * @param selection      which versions were asked for
+   * @param allVersions    every version, sorted
+   * @param sortedVersions the selected versions in the main line
+   * @return the pre-release steps
+   */
+  private static List<VersionStep> buildPreReleaseSteps(VersionSelection selection,
+                                                        List<VersionedArtifact> allVersions,
+                                                        List<VersionedArtifact> sortedVersions) {
+    List<VersionStep> steps = new ArrayList<>();
+    VersionedArtifact base = null;
+    int next = 0;
+    for (VersionedArtifact version : allVersions) {
+      if (!version.isPreRelease()) {
+        continue;
+      }
+      // move the base up to the latest selected release before this pre-release
+      while (next < sortedVersions.size()
+        && sortedVersions.get(next).isRelease()
+        && sortedVersions.get(next).compareTo(version) < 0) {
+        base = sortedVersions.get(next++);
+      }
+      if (null != base && selection.isInRange(version)) {
+        steps.add(VersionStep.builder().from(base).to(version).build());
+      }
+    }
+    return steps;
+  }
 }
@@ -0,0 +1,241 @@
+package com.sonalake.swaggerlog.nexus;
+
+import se.sawano.java.text.AlphanumericComparator;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * A version string, parsed once into something that can be compared without any more parsing or allocation.
+ * <p>
+ * Versions are ordered as in semver 2.0: a numeric core, e.g. {@code 1.2.0.1}, then an optional pre-release,
+ * e.g. {@code -RC.1}, which comes before the release itself, and optional build metadata, e.g. {@code +b42},
+ * which doesn't change the order. The core can have any number of components, and a core that runs out of
+ * components first is the lower, e.g. {@code 1.2 < 1.2.0.1 < 1.10}.
+ * <p>
+ * Anything else is compared as text, by the one shared alphanumeric comparator.
+ */
+final class VersionKey implements Comparable<VersionKey> {
+  /**
+   * The comparator for versions that can't be parsed. It's thread-safe, so there's only one
+   */
+  private static final Comparator<CharSequence> TEXT_ORDER = new AlphanumericComparator(Locale.ENGLISH);
+
+  private static final long[] NOT_NUMERIC = new long[0];
+
+  private final String version;
+
+  /**
+   * The numeric components of the core, or {@link #NOT_NUMERIC} if the version can't be parsed, or a component
+   * is too big to hold
+   */
+  private final long[] core;
+
+  /**
+   * The pre-release identifiers, or null if this isn't a pre-release
+   */
+  private final String[] preRelease;
+
+  /**
+   * True if the version could be parsed
+   */
+  private final boolean valid;
+
+  private VersionKey(String version, long[] core, String[] preRelease, boolean valid) {
+    this.version = version;
+    this.core = core;
+    this.preRelease = preRelease;
+    this.valid = valid;
+  }
+
+  /**
+   * @param version the version string, not null
+   * @return the parsed version
+   */
+  static VersionKey parse(String version) {
+    int build = version.indexOf('+');
+    int end = build < 0 ? version.length() : build;
+    int dash = version.indexOf('-');
+    int coreEnd = dash < 0 || dash > end ? end : dash;
+
+    if (build >= 0 && !isIdentifiers(version, build + 1, version.length())) {
+      return invalid(version);
+    }
+    String[] preRelease = null;
+    if (coreEnd < end) {
+      if (!isIdentifiers(version, coreEnd + 1, end)) {
+        return invalid(version);
+      }
+      preRelease = version.substring(coreEnd + 1, end).split("\\.");
+    }
+
+    int count = 1;
+    boolean hasDigits = false;
+    for (int i = 0; i < coreEnd; i++) {
+      char c = version.charAt(i);
+      if (c == '.') {
+        count++;
+      } else if (isDigit(c)) {
+        hasDigits = true;
+      } else {
+        return invalid(version);
+      }
+    }
+    if (!hasDigits) {
+      return invalid(version);
+    }
+
+    long[] core = new long[count];
+    int part = 0;
+    for (int i = 0; i < coreEnd; i++) {
+      char c = version.charAt(i);
+      if (c == '.') {
+        part++;
+      } else if (core[part] > (Long.MAX_VALUE - 9) / 10) {
+        // too big to hold, so it's still valid, but compared as text
+        return new VersionKey(version, NOT_NUMERIC, preRelease, true);
+      } else {
+        core[part] = core[part] * 10 + (c - '0');
+      }
+    }
+    return new VersionKey(version, core, preRelease, true);
+  }
+
+  /**
+   * @return true if the version is a release: only a numeric core, and maybe build metadata
+   */
+  boolean isRelease() {
+    return valid && null == preRelease;
+  }
+
+  /**
+   * @return true if the version is a pre-release of some numeric core
+   */
+  boolean isPreRelease() {
+    return valid && null != preRelease;
+  }
+
+  /**
+   * @param other another version
+   * @return true if both have the same numeric core, e.g. {@code 1.2.0-RC1} and {@code 1.2.0}
+   */
+  boolean hasSameCore(VersionKey other) {
+    if (core == NOT_NUMERIC || other.core == NOT_NUMERIC) {
+      return false;
+    }
+    return compareCores(other) == 0;
+  }
+
+  /**
+   * @param other another version
+   * @param depth how many components of the core are compared, missing components are zero
+   * @return true if both are in the same release line, e.g. {@code 1.2.0} and {@code 1.2.7} to a depth of 2
+   */
+  boolean isSameLine(VersionKey other, int depth) {
+    if (core == NOT_NUMERIC || other.core == NOT_NUMERIC) {
+      return false;
+    }
+    for (int i = 0; i < depth; i++) {
+      if (component(i) != other.component(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int compareTo(VersionKey other) {
+    if (core == NOT_NUMERIC || other.core == NOT_NUMERIC) {
+      return TEXT_ORDER.compare(version, other.version);
+    }
+    int compared = compareCores(other);
+    if (compared == 0) {
+      compared = comparePreReleases(other);
+    }
+    // only the build metadata is left, it doesn't change the order, but the order should still be stable
+    return compared == 0 ? version.compareTo(other.version) : compared;
+  }
+
+  private long component(int index) {
+    return index < core.length ? core[index] : 0;
+  }
+
+  private int compareCores(VersionKey other) {
+    int common = Math.min(core.length, other.core.length);
+    for (int i = 0; i < common; i++) {
+      int compared = Long.compare(core[i], other.core[i]);
+      if (compared != 0) {
+        return compared;
+      }
+    }
+    return Integer.compare(core.length, other.core.length);
+  }
+
+  /**
+   * A pre-release comes before its release. Otherwise each identifier is compared in turn: numbers as numbers,
+   * and before any text, and text in ASCII order. If all of them are the same, the one with more is the higher.
+   */
+  private int comparePreReleases(VersionKey other) {
+    if (null == preRelease || null == other.preRelease) {
+      return null == preRelease ? (null == other.preRelease ? 0 : 1) : -1;
+    }
+    int common = Math.min(preRelease.length, other.preRelease.length);
+    for (int i = 0; i < common; i++) {
+      int compared = compareIdentifiers(preRelease[i], other.preRelease[i]);
+      if (compared != 0) {
+        return compared;
+      }
+    }
+    return Integer.compare(preRelease.length, other.preRelease.length);
+  }
+
+  private static int compareIdentifiers(String left, String right) {
+    boolean leftNumeric = isNumeric(left);
+    boolean rightNumeric = isNumeric(right);
+    if (leftNumeric && rightNumeric) {
+      // a longer number is the bigger, so they never need to be parsed
+      return left.length() != right.length()
+        ? Integer.compare(left.length(), right.length())
+        : left.compareTo(right);
+    }
+    if (leftNumeric || rightNumeric) {
+      return leftNumeric ? -1 : 1;
+    }
+    return left.compareTo(right);
+  }
+
+  /**
+   * @return true if the range is dot-separated, non-empty identifiers of letters, digits and hyphens
+   */
+  private static boolean isIdentifiers(String version, int start, int end) {
+    if (start >= end || version.charAt(start) == '.' || version.charAt(end - 1) == '.') {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = version.charAt(i);
+      boolean allowed = isDigit(c) || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '-'
+        || (c == '.' && version.charAt(i - 1) != '.');
+      if (!allowed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isNumeric(String identifier) {
+    for (int i = 0; i < identifier.length(); i++) {
+      if (!isDigit(identifier.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static VersionKey invalid(String version) {
+    return new VersionKey(version, NOT_NUMERIC, null, false);
+  }
+}
@@ -0,0 +1,198 @@
+package com.sonalake.swaggerlog.nexus;
+
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.config.PreReleasePolicy;
+import com.sonalake.swaggerlog.config.RollupMode;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Which of the released versions go into the history: those within a version range, and of those only the
+ * last few. This is applied to the search results before anything is downloaded, so versions that aren't
+ * selected are never fetched, parsed or diffed.
+ * <p>
+ * A snapshot is always selected, and isn't counted as one of the last releases.
+ */
+@Builder
+@Getter
+@ToString
+public class VersionSelection {
+  /**
+   * Selects everything
+   */
+  public static final VersionSelection ALL = VersionSelection.builder().build();
+
+  /**
+   * The lowest version to select, inclusive - if null there is no lower bound
+   */
+  private final String minVersion;
+
+  /**
+   * The highest version to select, inclusive - if null there is no upper bound
+   */
+  private final String maxVersion;
+
+  /**
+   * Only select this many of the latest releases within the range, or with a rollup this many of the latest
+   * release lines - if zero or less, select them all
+   */
+  private final int lastReleases;
+
+  /**
+   * What's done with pre-releases - if null, they're left out
+   */
+  private final PreReleasePolicy preReleases;
+
+  /**
+   * Whether only the last release of each line is selected - if null, every release is
+   */
+  private final RollupMode rollup;
+
+  /**
+   * @param config the config
+   * @return the versions the config asks for
+   */
+  public static VersionSelection of(Config config) {
+    return VersionSelection.builder()
+      .minVersion(config.getMinVersion())
+      .maxVersion(config.getMaxVersion())
+      .lastReleases(config.getLastReleases())
+      .preReleases(config.getPreReleases())
+      .rollup(config.getRollup())
+      .build();
+  }
+
+  /**
+   * @return what's done with pre-releases
+   */
+  public PreReleasePolicy getPreReleasePolicy() {
+    return null == preReleases ? PreReleasePolicy.RELEASES_ONLY : preReleases;
+  }
+
+  /**
+   * @return whether only the last release of each line is selected
+   */
+  public RollupMode getRollupMode() {
+    return null == rollup ? RollupMode.NONE : rollup;
+  }
+
+  /**
+   * @return true if only some of the releases are selected
+   */
+  public boolean isLimited() {
+    return isNotBlank(minVersion) || isNotBlank(maxVersion) || lastReleases > 0;
+  }
+
+  /**
+   * @param version a release or pre-release
+   * @return true if the version is in the range, snapshots always are
+   */
+  public boolean isInRange(VersionedArtifact version) {
+    if (version.isSnapshot()) {
+      return true;
+    }
+    return !isBelowRange(version)
+      && (!isNotBlank(maxVersion) || version.compareTo(bound(maxVersion)) <= 0);
+  }
+
+  /**
+   * @param version a release or pre-release
+   * @return true if the version is lower than the range
+   */
+  public boolean isBelowRange(VersionedArtifact version) {
+    return !version.isSnapshot() && isNotBlank(minVersion) && version.compareTo(bound(minVersion)) < 0;
+  }
+
+  /**
+   * Nexus can list the versions newest first: once it has listed enough of them, there's no need to read
+   * any more. A release's pre-releases are listed after it, so if they're wanted, the listing has to go on to
+   * the release before the oldest one selected.
+   *
+   * @param newestFirst the versions listed so far, newest first
+   * @return true if no older version can be selected
+   */
+  public boolean hasEnough(List<VersionedArtifact> newestFirst) {
+    List<VersionedArtifact> releases = newestFirst.stream()
+      .filter(VersionedArtifact::isRelease)
+      .collect(Collectors.toList());
+    if (!releases.isEmpty() && isBelowRange(releases.get(releases.size() - 1))) {
+      return true;
+    }
+    int lines = lastReleases + (PreReleasePolicy.RELEASES_ONLY == getPreReleasePolicy() ? 0 : 1);
+    return lastReleases > 0 && countLines(selectRange(releases)) >= lines;
+  }
+
+  /**
+   * Only the newest release of each line is selected, so once a line has been listed, it's already selected
+   *
+   * @param newestFirst releases, newest first
+   * @return how many release lines they're in
+   */
+  private int countLines(List<VersionedArtifact> newestFirst) {
+    RollupMode mode = getRollupMode();
+    int lines = 0;
+    for (int i = 0; i < newestFirst.size(); i++) {
+      boolean newLine = i == 0
+        || RollupMode.NONE == mode
+        || !newestFirst.get(i).isSameLine(newestFirst.get(i - 1), mode.getDepth());
+      if (newLine) {
+        lines++;
+      }
+    }
+    return lines;
+  }
+
+  /**
+   * @param sorted the versions in the main line, in version order
+   * @return only the versions in the range, still in order
+   */
+  List<VersionedArtifact> selectRange(List<VersionedArtifact> sorted) {
+    return sorted.stream().filter(this::isInRange).collect(Collectors.toList());
+  }
+
+  /**
+   * With a rollup, only the last version of each line is kept. The snapshot is always kept, as are versions
+   * that can't be parsed, as they aren't in any line.
+   *
+   * @param sorted the versions in the main line, in version order
+   * @return the last version of each line, still in order
+   */
+  List<VersionedArtifact> rollUp(List<VersionedArtifact> sorted) {
+    RollupMode mode = getRollupMode();
+    if (RollupMode.NONE == mode) {
+      return sorted;
+    }
+    List<VersionedArtifact> latest = new ArrayList<>();
+    for (int i = 0; i < sorted.size(); i++) {
+      VersionedArtifact version = sorted.get(i);
+      if (i + 1 == sorted.size() || !version.isSameLine(sorted.get(i + 1), mode.getDepth())) {
+        latest.add(version);
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * @param sorted the versions in the main line, in version order, with any snapshot last
+   * @return the selected versions, still in order
+   */
+  List<VersionedArtifact> select(List<VersionedArtifact> sorted) {
+    List<VersionedArtifact> inRange = selectRange(sorted);
+    if (lastReleases <= 0) {
+      return inRange;
+    }
+    int releases = (int) inRange.stream().filter(v -> !v.isSnapshot()).count();
+    return inRange.subList(Math.max(0, releases - lastReleases), inRange.size());
+  }
+
+  private static VersionedArtifact bound(String version) {
+    return VersionedArtifact.builder().version(version).build();
+  }
+}
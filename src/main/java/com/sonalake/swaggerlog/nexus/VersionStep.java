@@ -2,6 +2,8 @@ package com.sonalake.swaggerlog.nexus;
 
 import lombok.*;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 @Builder
 @ToString
@@ -10,4 +12,10 @@ import lombok.*;
 public class VersionStep {
   private final VersionedArtifact from;
   private final VersionedArtifact to;
+
+  /**
+   * When releases are rolled up, the releases after {@link #from} that were folded into this step, in order
+   */
+  @Singular("foldedVersion")
+  private final List<VersionedArtifact> folded;
 }
@@ -3,25 +3,20 @@ package com.sonalake.swaggerlog.nexus;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
-import se.sawano.java.text.AlphanumericComparator;
 
 import javax.validation.constraints.NotNull;
-import java.util.Locale;
-
-import static org.apache.commons.lang3.math.NumberUtils.isDigits;
+import java.io.Serializable;
 
 /**
  * An version of the artifact that can be compared to another for swagger diffs
  */
-@AllArgsConstructor
 @NoArgsConstructor
-@Builder
-@ToString(exclude = "comparator")
+@ToString(exclude = "key")
 @JsonIgnoreProperties(ignoreUnknown = true)
-@EqualsAndHashCode(exclude = "comparator")
+@EqualsAndHashCode(exclude = {"key", "sha1"})
 @Getter
-public class VersionedArtifact implements Comparable<VersionedArtifact> {
-  private final AlphanumericComparator comparator = new AlphanumericComparator(Locale.ENGLISH);
+public class VersionedArtifact implements Comparable<VersionedArtifact>, Serializable {
+  private static final long serialVersionUID = 1L;
 
   @JsonProperty("groupId")
   private String group;
@@ -37,7 +32,31 @@ public class VersionedArtifact implements Comparable<VersionedArtifact> {
   private String path;
 
   /**
-   * Sorted by semver version order
+   * The SHA-1 of the swagger file, if nexus reported one
+   */
+  private String sha1;
+
+  /**
+   * The parsed version, so sorting doesn't parse it again on every comparison. It's parsed when the artifact is
+   * built, or on first use if the artifact was read by jackson or deserialized.
+   */
+  @Getter(AccessLevel.NONE)
+  private transient VersionKey key;
+
+  @Builder
+  public VersionedArtifact(String group, String artifact, String version, String downloadFrom, String path,
+                           String sha1) {
+    this.group = group;
+    this.artifact = artifact;
+    this.version = version;
+    this.downloadFrom = downloadFrom;
+    this.path = path;
+    this.sha1 = sha1;
+    this.key = null == version ? null : VersionKey.parse(version);
+  }
+
+  /**
+   * Sorted by semver version order, see {@link VersionKey}
    *
    * @param o the other entity
    * @return the comparison identity
@@ -50,20 +69,64 @@ public class VersionedArtifact implements Comparable<VersionedArtifact> {
     } else if (o.isSnapshot()) {
       return -1;
     } else {
-      return comparator.compare(getVersion(), o.getVersion());
+      return key().compareTo(o.key());
     }
   }
 
-  boolean isSnapshot() {
+  public boolean isSnapshot() {
     return null == version;
   }
 
   /**
-   * A version is diffable if it's a snapshot, or if it's version only contains digit values
+   * A version is diffable if it's a snapshot, or if it's a release
    *
    * @return
    */
   boolean isDiffable() {
-    return isSnapshot() || isDigits(getVersion().replace(".", ""));
+    return isSnapshot() || isRelease();
+  }
+
+  /**
+   * @return true if this is a release: the version is only digits and dots, and maybe build metadata
+   */
+  boolean isRelease() {
+    return !isSnapshot() && key().isRelease();
+  }
+
+  /**
+   * @return true if this is a pre-release of some version, e.g. {@code 1.2.0-RC1}
+   */
+  boolean isPreRelease() {
+    return !isSnapshot() && key().isPreRelease();
+  }
+
+  /**
+   * @param other another released or pre-released version
+   * @return true if both are of the same version, e.g. {@code 1.2.0-RC1} and {@code 1.2.0}
+   */
+  boolean hasSameCore(VersionedArtifact other) {
+    return !isSnapshot() && !other.isSnapshot() && key().hasSameCore(other.key());
+  }
+
+  /**
+   * @param other another released or pre-released version
+   * @param depth how many components of the version core are compared
+   * @return true if both are in the same release line, e.g. {@code 1.2.0} and {@code 1.2.7} to a depth of 2
+   */
+  boolean isSameLine(VersionedArtifact other, int depth) {
+    return !isSnapshot() && !other.isSnapshot() && key().isSameLine(other.key(), depth);
+  }
+
+  /**
+   * Only parse the version if it wasn't parsed when this was built. If two threads race to do it, they get the
+   * same result, so either can win.
+   */
+  private VersionKey key() {
+    VersionKey parsed = key;
+    if (null == parsed) {
+      parsed = VersionKey.parse(version);
+      key = parsed;
+    }
+    return parsed;
   }
 }
@@ -0,0 +1,136 @@
+package com.sonalake.swaggerlog.nexus.formats;
+
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+/**
+ * Finds the versions of an artifact in a directory with the maven repository layout, e.g. {@code ~/.m2/repository},
+ * a mirror, or an unpacked repository export, so no search is made over the network.
+ * <p>
+ * The versions are read from the artifact's {@code maven-metadata*.xml} files, or if there are none, from the
+ * version directories. Only the versions with a swagger file in the directory are found, and the swagger is read
+ * from where it is.
+ */
+@Slf4j
+class LocalRepositoryFinder {
+  private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+
+  /**
+   * @param config the config, with the local repository and the artifact to find
+   * @return the versions of the artifact in the local repository, or nothing if the artifact isn't there
+   */
+  List<VersionedArtifact> findVersions(Config config) {
+    Path artifactDir = Paths.get(config.getLocalRepository())
+      .resolve(config.getArtifact().getGroupId().replace('.', '/'))
+      .resolve(config.getArtifact().getArtifactId());
+    if (!Files.isDirectory(artifactDir)) {
+      log.warn("No versions of {} in local repository {}", config.getArtifact(), config.getLocalRepository());
+      return new ArrayList<>();
+    }
+
+    try {
+      Set<String> versions = readMetadataVersions(artifactDir);
+      if (versions.isEmpty()) {
+        versions = listVersionDirectories(artifactDir);
+      }
+
+      List<VersionedArtifact> found = new ArrayList<>();
+      for (String version : versions) {
+        // the snapshot, if any, comes from the snapshot file and not from the repository
+        if (version.endsWith(SNAPSHOT_SUFFIX)) {
+          continue;
+        }
+        Path swagger = artifactDir.resolve(version).resolve(filename(config, version));
+        if (Files.isRegularFile(swagger)) {
+          found.add(VersionedArtifact.builder()
+            .group(config.getArtifact().getGroupId())
+            .artifact(config.getArtifact().getArtifactId())
+            .version(version)
+            .downloadFrom(swagger.toString())
+            .build());
+        } else {
+          log.debug("No swagger for {} in {}", version, swagger.getParent());
+        }
+      }
+      return found;
+    } catch (IOException | SAXException | ParserConfigurationException e) {
+      throw new IllegalArgumentException("Failed to read versions from local repository: " + artifactDir, e);
+    }
+  }
+
+  /**
+   * A remote repository has one {@code maven-metadata.xml}, a local repository has one for each repository it
+   * was downloaded from, and one for what was installed locally. The versions in all of them are found.
+   */
+  private Set<String> readMetadataVersions(Path artifactDir)
+    throws IOException, SAXException, ParserConfigurationException {
+    Set<String> versions = new LinkedHashSet<>();
+    try (DirectoryStream<Path> metadataFiles = Files.newDirectoryStream(artifactDir, "maven-metadata*.xml")) {
+      DocumentBuilder parser = newParser();
+      for (Path metadata : metadataFiles) {
+        Document document = parser.parse(metadata.toFile());
+        NodeList listed = document.getElementsByTagName("version");
+        for (int i = 0; i < listed.getLength(); i++) {
+          String version = listed.item(i).getTextContent().trim();
+          // the project's own version element is outside the versions list, and is listed there anyway
+          if (isNotBlank(version)) {
+            versions.add(version);
+          }
+        }
+      }
+    }
+    return versions;
+  }
+
+  private static Set<String> listVersionDirectories(Path artifactDir) throws IOException {
+    try (Stream<Path> children = Files.list(artifactDir)) {
+      return children
+        .filter(Files::isDirectory)
+        .map(child -> child.getFileName().toString())
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+  }
+
+  /**
+   * e.g. {@code order-state-service-1.0.2-openapi.json}
+   */
+  private static String filename(Config config, String version) {
+    String classifier = config.getArtifact().getClassifier();
+    return config.getArtifact().getArtifactId() + "-" + version
+      + (isNotBlank(classifier) ? "-" + classifier : "")
+      + ".json";
+  }
+
+  /**
+   * The metadata doesn't need a DTD, so none are read
+   */
+  private static DocumentBuilder newParser() throws ParserConfigurationException {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    factory.setExpandEntityReferences(false);
+    return factory.newDocumentBuilder();
+  }
+}
@@ -0,0 +1,31 @@
+package com.sonalake.swaggerlog.nexus.formats;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Shared, pre-configured readers for the nexus search results.
+ * <p>
+ * The readers are immutable, so they are built once and shared between searches and threads. They parse
+ * incrementally from the response stream, and only bind the fields the result classes declare, e.g.
+ * {@code repoDetails}, {@code data[].artifactHits} and {@code items[].assets}; everything else in the response
+ * is skipped over without being built into a tree.
+ */
+final class NexusReaders {
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  /**
+   * Reads the results of a V2 lucene search
+   */
+  static final ObjectReader V2 = MAPPER.readerFor(V2NexusResult.class);
+
+  /**
+   * Reads a page of the results of a V3 search
+   */
+  static final ObjectReader V3 = MAPPER.readerFor(V3NexusResult.class);
+
+  private NexusReaders() {
+  }
+}
@@ -7,6 +7,7 @@ import com.sonalake.swaggerlog.nexus.VersionedArtifact;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.google.common.collect.Iterables.isEmpty;
@@ -21,6 +22,12 @@ public class V3NexusResult implements NexusResult {
   @JsonProperty("items")
   private List<Item> items;
 
+  /**
+   * If set, there are more results, and this needs to be passed to the next search to get them
+   */
+  @JsonProperty("continuationToken")
+  private String continuationToken;
+
 
   /**
    * ${@inheritDoc}
@@ -35,15 +42,14 @@ public class V3NexusResult implements NexusResult {
     // this is _much_ easier than V2, because this result contains the asset download URL
     return emptyIfNull(items).stream()
       .map(i -> {
-        String downloadFrom = emptyIfNull(i.assets).stream().filter(a -> a.getPath().endsWith(filenameSuffix))
-          .findFirst()
-          .map(Asset::getDownloadUrl)
-          .orElse(null);
+        Optional<Asset> asset = emptyIfNull(i.assets).stream().filter(a -> a.getPath().endsWith(filenameSuffix))
+          .findFirst();
         return VersionedArtifact.builder()
           .group(i.getGroup())
           .version(i.getVersion())
           .artifact(i.getName())
-          .downloadFrom(downloadFrom)
+          .downloadFrom(asset.map(Asset::getDownloadUrl).orElse(null))
+          .sha1(asset.map(Asset::getChecksum).map(Checksum::getSha1).orElse(null))
           .build();
       })
       .collect(Collectors.toList());
@@ -67,6 +73,14 @@ public class V3NexusResult implements NexusResult {
   private static class Asset {
     private String path;
     private String downloadUrl;
+    @JsonProperty("checksum")
+    private Checksum checksum;
 
   }
+
+  @Data
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  private static class Checksum {
+    private String sha1;
+  }
 }
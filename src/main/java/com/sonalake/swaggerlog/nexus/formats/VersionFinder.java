@@ -1,23 +1,39 @@
 package com.sonalake.swaggerlog.nexus.formats;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.http.exceptions.UnirestException;
-import com.mashape.unirest.request.HttpRequest;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.http.Transport;
+import com.sonalake.swaggerlog.http.TransportRequest;
+import com.sonalake.swaggerlog.http.TransportResponse;
+import com.sonalake.swaggerlog.nexus.VersionSelection;
 import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 @Slf4j
+@RequiredArgsConstructor
 public class VersionFinder {
-
+  private final Transport transport;
+
+  /**
+   * Find the published versions of the configured artifact, in the local repository if there is one, otherwise
+   * by searching nexus
+   *
+   * @param config the config
+   * @return the versions, in no particular order
+   */
   public List<VersionedArtifact> findVersions(Config config) {
+    if (isNotBlank(config.getLocalRepository())) {
+      return new LocalRepositoryFinder().findVersions(config);
+    }
     try {
       if (config.isVersion3()) {
         return findNexus3Versions(config);
@@ -25,16 +41,77 @@ public class VersionFinder {
         return findNexus2Versions(config);
       }
 
-    } catch (UnirestException | IOException | AssertionError e) {
+    } catch (IOException | AssertionError e) {
       throw new IllegalArgumentException("Failed to parse results from nexus: " + config, e);
     }
 
   }
 
 
-  private List<VersionedArtifact> findNexus3Versions(Config config) throws UnirestException, IOException {
-    HttpRequest builder = Unirest.get(config.getNexusHome() + "/service/rest/v1/search")
+  /**
+   * The V3 search is paged, so this follows the continuation tokens until there are no more pages. The next
+   * page is requested as soon as the current one has been parsed, so it downloads while the current page's
+   * items are mapped to versions.
+   * <p>
+   * If only some of the versions are selected, nexus is asked for the newest versions first, and the paging
+   * stops once no older version could be selected. Nexus's version order isn't always semver order, e.g. with
+   * qualifiers, so if a page isn't in semver order every page is read.
+   */
+  private List<VersionedArtifact> findNexus3Versions(Config config) throws IOException {
+    VersionSelection selection = VersionSelection.of(config);
+    List<VersionedArtifact> versions = new ArrayList<>();
+    boolean newestFirst = true;
+
+    TransportResponse response = transport.get(buildNexus3Search(config, selection, null));
+    while (null != response) {
+      V3NexusResult page = readNexusResults(response, NexusReaders.V3, config);
+
+      // if only some versions are selected, this page's versions decide if the next page is needed at all
+      boolean hasMore = isNotBlank(page.getContinuationToken());
+      if (selection.isLimited()) {
+        int listed = versions.size();
+        versions.addAll(page.buildVersions(config));
+        if (newestFirst && !isNewestFirst(versions, Math.max(0, listed - 1))) {
+          log.debug("Nexus didn't list the versions newest first, reading every page");
+          newestFirst = false;
+        }
+        if (hasMore && newestFirst && selection.hasEnough(versions)) {
+          log.debug("Found all the selected versions, not reading any more pages");
+          hasMore = false;
+        }
+      }
+
+      CompletableFuture<TransportResponse> nextPage = hasMore
+        ? transport.send(buildNexus3Search(config, selection, page.getContinuationToken()))
+        : null;
+
+      if (!selection.isLimited()) {
+        versions.addAll(page.buildVersions(config));
+      }
+      response = null == nextPage ? null : Transport.await(nextPage);
+    }
+    return versions;
+  }
+
+  /**
+   * @param versions the versions listed so far
+   * @param from     where to start checking
+   * @return true if no version from here on is newer than the one before it
+   */
+  private static boolean isNewestFirst(List<VersionedArtifact> versions, int from) {
+    for (int i = from + 1; i < versions.size(); i++) {
+      if (versions.get(i).compareTo(versions.get(i - 1)) > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private TransportRequest buildNexus3Search(Config config, VersionSelection selection, String continuationToken) {
+    TransportRequest.TransportRequestBuilder builder = TransportRequest.builder()
+      .uri(config.getNexusHome() + "/service/rest/v1/search")
       .header("accept", "application/json")
+      .revalidate(true)
       .queryString("repository", config.getRepositoryId())
       .queryString("group", config.getArtifact().getGroupId())
       .queryString("maven.artifactId", config.getArtifact().getArtifactId())
@@ -43,13 +120,20 @@ public class VersionFinder {
     if (isNotBlank(config.getArtifact().getClassifier())) {
       builder.queryString("maven.classifier", config.getArtifact().getClassifier());
     }
-
-    return parseNexusResults(builder.asString(), V3NexusResult.class, config);
+    if (selection.isLimited()) {
+      builder.queryString("sort", "version").queryString("direction", "desc");
+    }
+    if (isNotBlank(continuationToken)) {
+      builder.queryString("continuationToken", continuationToken);
+    }
+    return builder.build();
   }
 
-  private List<VersionedArtifact> findNexus2Versions(Config config) throws UnirestException, IOException {
-    HttpRequest builder = Unirest.get(config.getNexusHome() + "/service/local/lucene/search")
+  private List<VersionedArtifact> findNexus2Versions(Config config) throws IOException {
+    TransportRequest.TransportRequestBuilder builder = TransportRequest.builder()
+      .uri(config.getNexusHome() + "/service/local/lucene/search")
       .header("accept", "application/json")
+      .revalidate(true)
       .queryString("g", config.getArtifact().getGroupId())
       .queryString("a", config.getArtifact().getArtifactId())
       .queryString("p", "json")
@@ -59,19 +143,21 @@ public class VersionFinder {
       builder.queryString("c", config.getArtifact().getClassifier());
     }
 
-    HttpResponse<String> result = builder.asString();
-    if (result.getStatus() >= 400) {
-      throw new AssertionError(String.format("Request for config rejected (%s) by nexus: %s", result.getStatusText(), config));
-    }
-
-
-    return parseNexusResults(builder.asString(), V2NexusResult.class, config);
+    // one request per search: the status is checked, and the body parsed, from the same response
+    return this.<V2NexusResult>readNexusResults(transport.get(builder.build()), NexusReaders.V2, config)
+      .buildVersions(config);
   }
 
 
-  private <T extends NexusResult> List<VersionedArtifact> parseNexusResults(HttpResponse<String> result, Class<T> format, Config config) throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
-    T resultObject = mapper.readValue(result.getBody(), format);
-    return resultObject.buildVersions(config);
+  /**
+   * Parse the results straight from the response stream, without building the body as a string first
+   */
+  private <T extends NexusResult> T readNexusResults(TransportResponse result, ObjectReader reader, Config config) throws IOException {
+    try (InputStream body = result.getBody()) {
+      if (result.getStatus() >= 400) {
+        throw new AssertionError(String.format("Request for config rejected (%s) by nexus: %s", result.getStatus(), config));
+      }
+      return reader.readValue(body);
+    }
   }
 }
@@ -1,10 +1,12 @@
 /**
- * Four main packages here:
+ * Six main packages here:
  *
  * <dl>
  *   <dt>gradle</dt><dd>Defines the gradle plugin itseld</dd>
  *   <dt>config</dt><dd>Contains classes to simplify the configuration</dd>
  *   <dt>nexus</dt><dd>Contains classes for pulling and sorting versions from nexus</dd>
+ *   <dt>http</dt><dd>The transport used to talk to nexus, so requests can run concurrently over shared connections</dd>
+ *   <dt>cache</dt><dd>Keeps downloaded swaggers on disk so released versions aren't downloaded again</dd>
  *   <dt>diff</dt><dd>Calls out the the nexus classes, and then produces the diffs, ans per the configs</dd>
  * </dl>
  */
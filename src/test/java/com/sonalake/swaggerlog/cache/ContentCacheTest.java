@@ -0,0 +1,115 @@
+package com.sonalake.swaggerlog.cache;
+
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ContentCacheTest {
+
+  // the sha1 of "{}"
+  private static final String EMPTY_OBJECT_SHA1 = "bf21a9e8fbc5a3846fb05b4fa0859e0917b2202f";
+
+  @Test
+  public void testStoreAndFind() throws Exception {
+    ContentCache cache = new ContentCache(Files.createTempDirectory("ContentCacheTest"), 1024 * 1024);
+
+    // nothing there to start with
+    assertFalse(cache.find(version("1.0", null), "openapi").isPresent());
+
+    // when we store a version
+    Path stored = cache.store(version("1.0", null), "openapi", IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    assertTrue(stored.toString().endsWith("thisIsId-1.0-openapi.json"));
+
+    // then we can find it again, without or with the checksum nexus reported
+    Optional<Path> found = cache.find(version("1.0", null), "openapi");
+    assertEquals(Optional.of(stored), found);
+    assertEquals(Optional.of(stored), cache.find(version("1.0", EMPTY_OBJECT_SHA1), "openapi"));
+    assertEquals("{}", new String(Files.readAllBytes(stored), StandardCharsets.UTF_8));
+
+    // but not for a different classifier, or if nexus says the content has a different checksum
+    assertFalse(cache.find(version("1.0", null), "other").isPresent());
+    assertFalse(cache.find(version("1.0", "0000000000000000000000000000000000000000"), "openapi").isPresent());
+  }
+
+  @Test
+  public void testChecksumMismatch() throws Exception {
+    ContentCache cache = new ContentCache(Files.createTempDirectory("ContentCacheTest"), 1024 * 1024);
+
+    // if the download doesn't match what nexus said it should be, it's not cached
+    IOException expected = assertThrows(IOException.class, () -> cache.store(
+      version("1.0", "0000000000000000000000000000000000000000"),
+      null,
+      IOUtils.toInputStream("{}", StandardCharsets.UTF_8))
+    );
+    assertTrue("Wrong message", expected.getMessage().startsWith("Checksum mismatch"));
+    assertFalse(cache.find(version("1.0", null), null).isPresent());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedAreEvicted() throws Exception {
+    Path directory = Files.createTempDirectory("ContentCacheTest");
+
+    // given a previous run cached two versions, and the older one was used most recently
+    ContentCache previousRun = new ContentCache(directory, 1024 * 1024);
+    Path older = previousRun.store(version("1.0", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    Path newer = previousRun.store(version("1.1", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(older, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    Files.setLastModifiedTime(newer, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+
+    // when this run, with a small cap, stores another version
+    ContentCache cache = new ContentCache(directory, 100);
+    Path latest = cache.store(version("1.2", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+
+    // then only the least recently used entry was removed
+    assertTrue(Files.exists(latest));
+    assertTrue(Files.exists(older));
+    assertFalse(Files.exists(newer));
+  }
+
+  @Test
+  public void testSizeIsTrackedAcrossStores() throws Exception {
+    Path directory = Files.createTempDirectory("ContentCacheTest");
+
+    // given a previous run cached three versions, each taking 42 bytes with its checksum
+    ContentCache previousRun = new ContentCache(directory, 1024 * 1024);
+    Path first = previousRun.store(version("1.0", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    Path second = previousRun.store(version("1.1", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    Path third = previousRun.store(version("1.2", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(first, FileTime.from(Instant.now().minus(3, ChronoUnit.HOURS)));
+    Files.setLastModifiedTime(second, FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS)));
+    Files.setLastModifiedTime(third, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+
+    // when this run, with room for three, uses the oldest and then stores two more
+    ContentCache cache = new ContentCache(directory, 130);
+    assertTrue(cache.find(version("1.0", null), null).isPresent());
+    cache.store(version("1.3", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+    cache.store(version("1.4", null), null, IOUtils.toInputStream("{}", StandardCharsets.UTF_8));
+
+    // then each store evicted the least recently used entry that this run didn't use
+    assertTrue(Files.exists(first));
+    assertFalse(Files.exists(second));
+    assertFalse(Files.exists(third));
+  }
+
+  private VersionedArtifact version(String version, String sha1) {
+    return VersionedArtifact.builder()
+      .group("groupA")
+      .artifact("thisIsId")
+      .version(version)
+      .downloadFrom("http://nexus/there/" + version)
+      .sha1(sha1)
+      .build();
+  }
+}
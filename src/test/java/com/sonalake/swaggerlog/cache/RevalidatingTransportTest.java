@@ -0,0 +1,96 @@
+package com.sonalake.swaggerlog.cache;
+
+import com.sonalake.swaggerlog.http.HttpClientTransport;
+import com.sonalake.swaggerlog.http.StubNexus;
+import com.sonalake.swaggerlog.http.Transport;
+import com.sonalake.swaggerlog.http.TransportRequest;
+import com.sonalake.swaggerlog.http.TransportResponse;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RevalidatingTransportTest {
+  private static final String SWAGGER = "/repository/snapshots/thisIsId-1.1-SNAPSHOT.json";
+
+  private StubNexus nexus;
+  private Transport transport;
+
+  @Before
+  public void setup() throws IOException {
+    nexus = new StubNexus();
+    transport = new RevalidatingTransport(
+      new HttpClientTransport(2),
+      new ContentCache(Files.createTempDirectory("RevalidatingTransportTest"), 1024 * 1024)
+    );
+  }
+
+  @After
+  public void teardown() {
+    nexus.close();
+  }
+
+  @Test
+  public void testNotModifiedIsServedFromCache() throws Exception {
+    // given nexus only sends the content when the etag doesn't match
+    nexus
+      .respond(StubNexus.Route.builder().path(SWAGGER).requestHeader("if-none-match", "\"v1\"").status(304).build())
+      .respond(StubNexus.Route.builder().path(SWAGGER).responseHeader("ETag", "\"v1\"").body("{\"v\":1}").build());
+
+    // when the swagger is asked for twice, both times we get the content
+    assertEquals("{\"v\":1}", fetch(true));
+    assertEquals("{\"v\":1}", fetch(true));
+
+    // and the second request was conditional on what we got the first time
+    List<StubNexus.Exchange> requests = nexus.exchangesFor(SWAGGER);
+    assertEquals(2, requests.size());
+    assertFalse(requests.get(0).getHeaders().containsKey("if-none-match"));
+    assertEquals("\"v1\"", requests.get(1).getHeaders().get("if-none-match"));
+  }
+
+  @Test
+  public void testModifiedIsDownloadedAgain() throws Exception {
+    // given the content changed since it was last fetched
+    nexus
+      .respond(StubNexus.Route.builder().path(SWAGGER)
+        .requestHeader("if-modified-since", "Tue, 13 Oct 2026 10:00:00 GMT").body("{\"v\":2}").build())
+      .respond(StubNexus.Route.builder().path(SWAGGER)
+        .responseHeader("Last-Modified", "Tue, 13 Oct 2026 10:00:00 GMT").body("{\"v\":1}").build());
+    assertEquals("{\"v\":1}", fetch(true));
+
+    // then the new content is used
+    assertEquals("{\"v\":2}", fetch(true));
+  }
+
+  @Test
+  public void testOnlyMarkedRequestsAreRevalidated() throws Exception {
+    nexus.respond(StubNexus.Route.builder().path(SWAGGER).responseHeader("ETag", "\"v1\"").body("{}").build());
+
+    // when the request isn't marked for revalidation
+    fetch(false);
+    fetch(false);
+
+    // then nothing is conditional
+    nexus.exchangesFor(SWAGGER).forEach(e -> assertFalse(e.getHeaders().containsKey("if-none-match")));
+  }
+
+  private String fetch(boolean revalidate) throws IOException {
+    TransportResponse response = transport.get(TransportRequest.builder()
+      .uri(nexus.getHome() + SWAGGER)
+      .revalidate(revalidate)
+      .build());
+    assertEquals(200, response.getStatus());
+    try (InputStream body = response.getBody()) {
+      return IOUtils.toString(body, StandardCharsets.UTF_8);
+    }
+  }
+}
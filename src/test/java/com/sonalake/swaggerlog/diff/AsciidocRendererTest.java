@@ -0,0 +1,137 @@
+package com.sonalake.swaggerlog.diff;
+
+import com.deepoove.swagger.diff.SwaggerDiff;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sonalake.swaggerlog.config.RendererType;
+import com.sonalake.swaggerlog.config.Target;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.lang.Thread.currentThread;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AsciidocRendererTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Test
+  public void testRenderedFixture() throws Exception {
+    // given a step with a new, a deprecated and a changed endpoint
+    SwaggerDiff diff = SwaggerDiff.compareV2(
+      MAPPER.readTree(fromResource("renderer/old.json")),
+      MAPPER.readTree(fromResource("renderer/new.json"))
+    );
+
+    // when it's rendered directly to asciidoc
+    StringWriter out = new StringWriter();
+    AsciidocRenderer.builder().baseChapterLevel(3).build().render(diff, out);
+
+    // then it's exactly the expected file
+    assertEquals(fromResource("renderer/expected.adoc"), out.toString());
+  }
+
+  @Test
+  public void testSameChangesAsTheMarkdownRoute() throws Exception {
+    // given a step with a new, a deprecated and a changed endpoint
+    SwaggerDiff diff = SwaggerDiff.compareV2(
+      MAPPER.readTree(fromResource("renderer/old.json")),
+      MAPPER.readTree(fromResource("renderer/new.json"))
+    );
+
+    // when it's rendered both ways
+    StringWriter direct = new StringWriter();
+    AsciidocRenderer.builder().baseChapterLevel(3).build().render(diff, direct);
+    StringWriter converted = new StringWriter();
+    new Renderer(3, Map.of()).render(diff, converted);
+
+    // then they only differ in their layout
+    assertEquals(withoutLayout(converted.toString()), withoutLayout(direct.toString()));
+    // and the listing delimiters that the markdown route strips
+    assertTrue(direct.toString().contains("Parameters\n\n----\n    Add limit //Page size\n----\n"));
+    assertFalse(converted.toString().contains("----"));
+  }
+
+  @Test
+  public void testChangedParametersAndReturnType() throws Exception {
+    // given a step where a parameter was added and a property was added to the return type
+    SwaggerDiff diff = SwaggerDiff.compareV2(
+      MAPPER.readTree(pets("1.0", "", "{\"name\": {\"type\": \"string\"}}")),
+      MAPPER.readTree(pets("1.1", ", {\"name\": \"limit\", \"in\": \"query\", \"type\": \"integer\"}",
+        "{\"name\": {\"type\": \"string\"}, \"age\": {\"type\": \"integer\", \"description\": \"In years\"}}"))
+    );
+
+    // when it's rendered at the first chapter level
+    StringWriter out = new StringWriter();
+    AsciidocRenderer.builder().baseChapterLevel(1).build().render(diff, out);
+
+    // then every line ends with a newline, whatever the platform's line separator is
+    assertEquals(
+      "\n"
+        + "= Version 1.0 to 1.1\n"
+        + "\n"
+        + "== Changed Endpoints\n"
+        + "\n"
+        + "`GET` /pets Find a pet\n"
+        + "\n"
+        + "Parameters\n"
+        + "\n"
+        + "----\n"
+        + "    Add limit\n"
+        + "----\n"
+        + "\n"
+        + "Return Type\n"
+        + "\n"
+        + "----\n"
+        + "    Insert age //In years\n"
+        + "----\n"
+        + "\n",
+      out.toString()
+    );
+  }
+
+  @Test
+  public void testRendererSelection() {
+    assertTrue(DiffRenderer.forTarget(Target.builder().build()) instanceof Renderer);
+    assertTrue(
+      DiffRenderer.forTarget(Target.builder().renderer(RendererType.ASCIIDOC).build()) instanceof AsciidocRenderer
+    );
+    assertEquals(RendererType.ASCIIDOC, RendererType.of("Asciidoc"));
+    assertEquals(RendererType.MARKDOWN, RendererType.of(null));
+    assertThrows(IllegalArgumentException.class, () -> RendererType.of("html"));
+  }
+
+  /**
+   * The allowed differences between the two routes: blank lines and indentation, the listing delimiters the
+   * native renderer writes, and the thematic breaks the markdown converter can leave
+   */
+  private static List<String> withoutLayout(String rendered) {
+    return Arrays.stream(rendered.split("\n"))
+      .map(String::trim)
+      .filter(line -> !line.isEmpty())
+      .filter(line -> !"----".equals(line) && !"'''".equals(line))
+      .collect(Collectors.toList());
+  }
+
+  private static String pets(String version, String moreParameters, String properties) {
+    return "{\"swagger\": \"2.0\", \"info\": {\"version\": \"" + version + "\", \"title\": \"pets\"},"
+      + " \"paths\": {\"/pets\": {\"get\": {\"summary\": \"Find a pet\","
+      + " \"parameters\": [{\"name\": \"id\", \"in\": \"query\", \"type\": \"string\"}" + moreParameters + "],"
+      + " \"responses\": {\"200\": {\"description\": \"ok\","
+      + " \"schema\": {\"$ref\": \"#/definitions/Pet\"}}}}}},"
+      + " \"definitions\": {\"Pet\": {\"type\": \"object\", \"properties\": " + properties + "}}}";
+  }
+
+  private String fromResource(String name) throws IOException {
+    return IOUtils.toString(currentThread().getContextClassLoader().getResource(name), StandardCharsets.UTF_8);
+  }
+}
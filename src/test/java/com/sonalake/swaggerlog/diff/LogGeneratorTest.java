@@ -2,6 +2,8 @@ package com.sonalake.swaggerlog.diff;
 
 import com.deepoove.swagger.diff.SwaggerDiff;
 import com.deepoove.swagger.diff.model.Endpoint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sonalake.swaggerlog.config.Artifact;
 import com.sonalake.swaggerlog.config.Config;
 import com.sonalake.swaggerlog.config.Target;
@@ -17,15 +19,22 @@ import org.junit.runner.RunWith;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.powermock.api.mockito.PowerMockito.*;
 
 @RunWith(PowerMockRunner.class)
@@ -34,6 +43,20 @@ import static org.powermock.api.mockito.PowerMockito.*;
 public class LogGeneratorTest {
   @Test
   public void test() throws Exception {
+    testHistory(1, 0);
+  }
+
+  @Test
+  public void testParallel() throws Exception {
+    testHistory(4, 0);
+  }
+
+  @Test
+  public void testMemoryBounded() throws Exception {
+    testHistory(4, 1);
+  }
+
+  private void testHistory(int parallelism, long heapBudgetMb) throws Exception {
     mockStatic(SwaggerDiff.class);
     Config config = Config.builder()
       .artifact(Artifact.builder()
@@ -42,6 +65,8 @@ public class LogGeneratorTest {
         .build())
       .nexusHome("http://nexus/there")
       .target(Target.builder().targetdir(Files.createTempDirectory("LogGeneratorTest").toString()).build())
+      .parallelism(parallelism)
+      .heapBudgetMb(heapBudgetMb)
       .build();
 
     Scanner scanner = spy(Scanner.builder()
@@ -49,27 +74,25 @@ public class LogGeneratorTest {
       .build());
 
     // given this history
+    java.nio.file.Path specs = Files.createTempDirectory("LogGeneratorTestSpecs");
     List<VersionStep> history = asList(
-      VersionStep.builder().from(artifact("1.0")).to(artifact("1.1")).build(),
-      VersionStep.builder().from(artifact("1.1")).to(artifact("1.2")).build(),
-      VersionStep.builder().from(artifact("1.2")).to(artifact("1.3")).build(),
-      VersionStep.builder().from(artifact("1.3")).to(artifact("1.4")).build(),
-      VersionStep.builder().from(artifact("1.4")).to(artifact(null)).build()
+      VersionStep.builder().from(artifact(specs, "1.0")).to(artifact(specs, "1.1")).build(),
+      VersionStep.builder().from(artifact(specs, "1.1")).to(artifact(specs, "1.2")).build(),
+      VersionStep.builder().from(artifact(specs, "1.2")).to(artifact(specs, "1.3")).build(),
+      VersionStep.builder().from(artifact(specs, "1.3")).to(artifact(specs, "1.4")).build(),
+      VersionStep.builder().from(artifact(specs, "1.4")).to(snapshot(specs, "1.5-SNAPSHOT")).build()
     );
 
     // given these diffs
+    List<JsonNode> comparedSpecs = Collections.synchronizedList(new ArrayList<>());
+    when(SwaggerDiff.compareV2(any(JsonNode.class), any(JsonNode.class))).then(a -> {
+      JsonNode fromSpec = a.getArgument(0);
+      JsonNode toSpec = a.getArgument(1);
+      comparedSpecs.add(fromSpec);
+      comparedSpecs.add(toSpec);
 
-    when(SwaggerDiff.class, "compareV2", anyString(), any()).then(a -> {
-      String from = a.getArgument(0);
-      from = from.split("/")[from.split("/").length - 2];
-
-      // the target version could be null, if this is a snapshot
-      String to = a.getArgument(1);
-      if (null == to) {
-        to = "1.5-SNAPSHOT";
-      } else {
-        to = to.split("/")[to.split("/").length - 2];
-      }
+      String from = fromSpec.path("info").path("version").asText();
+      String to = toSpec.path("info").path("version").asText();
 
       SwaggerDiff diff = mock(SwaggerDiff.class);
 
@@ -115,6 +138,152 @@ public class LogGeneratorTest {
       files
     );
 
+    // and each version was only parsed once, in whatever order the steps ran, unless memory is bounded, when
+    // the specs aren't held and every comparison gets its own
+    assertEquals(history.size() * 2, comparedSpecs.size());
+    Set<JsonNode> parsed = Collections.newSetFromMap(new IdentityHashMap<>());
+    parsed.addAll(comparedSpecs);
+    long versions = history.stream().flatMap(step -> Stream.of(step.getFrom(), step.getTo())).distinct().count();
+    assertEquals("versions should only be parsed once", heapBudgetMb == 0 ? versions : comparedSpecs.size(),
+      parsed.size());
+
+    // and the run is reported in the metrics
+    JsonNode metrics = new ObjectMapper().readTree(
+      Paths.get(config.getTarget().getTargetdir(), LogGenerator.CHANGE_LOG_METRICS).toFile()
+    );
+    assertEquals(5, metrics.path("counters").path("steps").asInt());
+    assertEquals(4, metrics.path("counters").path("renderedFiles").asInt());
+    assertEquals(1, metrics.path("counters").path("unchangedSteps").asInt());
+    assertEquals(5, metrics.path("stages").path("diff").path("count").asInt());
+
+    // and the releases are downloaded, but the snapshot is read where it is, and every one is parsed
+    assertEquals(5, metrics.path("stages").path("fetch").path("count").asInt());
+    assertTrue("Not every spec was parsed", metrics.path("stages").path("parse").path("count").asInt() >= 6);
+
+    // and each part of the markdown route is timed on its own
+    for (String stage : asList("render", "convert", "replace", "write")) {
+      assertEquals(stage, 4, metrics.path("stages").path(stage).path("count").asInt());
+    }
+  }
+
+  @Test
+  public void testIncremental() throws Exception {
+    mockStatic(SwaggerDiff.class);
+    Config config = Config.builder()
+      .artifact(Artifact.builder()
+        .groupId("groupy")
+        .artifactId("covenant")
+        .build())
+      .nexusHome("http://nexus/there")
+      .target(Target.builder().targetdir(Files.createTempDirectory("LogGeneratorTest").toString()).build())
+      .incremental(true)
+      .build();
+
+    Scanner scanner = spy(Scanner.builder()
+      .config(config)
+      .build());
+
+    // given this history
+    java.nio.file.Path specs = Files.createTempDirectory("LogGeneratorTestSpecs");
+    List<VersionStep> history = asList(
+      VersionStep.builder().from(artifact(specs, "1.0")).to(artifact(specs, "1.1")).build(),
+      VersionStep.builder().from(artifact(specs, "1.1")).to(artifact(specs, "1.2")).build(),
+      VersionStep.builder().from(artifact(specs, "1.2")).to(snapshot(specs, "1.3-SNAPSHOT")).build()
+    );
+    doReturn(history).when(scanner).getHistory();
+
+    // where every step other than 1.1 -> 1.2 has changes
+    List<String> diffed = Collections.synchronizedList(new ArrayList<>());
+    when(SwaggerDiff.compareV2(any(JsonNode.class), any(JsonNode.class))).then(a -> {
+      String from = a.<JsonNode>getArgument(0).path("info").path("version").asText();
+      String to = a.<JsonNode>getArgument(1).path("info").path("version").asText();
+      diffed.add(from + " -> " + to);
+
+      SwaggerDiff diff = mock(SwaggerDiff.class);
+      when(diff.getOldVersion()).thenReturn(from);
+      when(diff.getNewVersion()).thenReturn(to);
+      if (!"1.1".equals(from)) {
+        when(diff.getNewEndpoints()).thenReturn(asList(get("/a/" + to, "Some details")));
+      }
+      return diff;
+    });
+
+    LogGenerator generator = spy(LogGenerator.builder().config(config).build());
+    doReturn(scanner).when(generator).buildScanner();
+
+    // when we generate the log twice
+    generator.generateChangeLog();
+    generator.generateChangeLog();
+
+    // then the steps between releases were only diffed on the first run
+    assertEquals(
+      asList("1.0 -> 1.1", "1.1 -> 1.2", "1.2 -> 1.3-SNAPSHOT", "1.2 -> 1.3-SNAPSHOT"),
+      diffed
+    );
+
+    // and the index still includes everything
+    List<String> files = Files.readAllLines(Paths.get(config.getTarget().getTargetdir(), LogGenerator.CHANGE_LOG_ADOC));
+    assertEquals(
+      asList(
+        "include::change-log-1.0-1.1.adoc[]", "",
+        "include::change-log-1.2-1.3-SNAPSHOT.adoc[]", ""
+      ),
+      files
+    );
+  }
+
+  @Test
+  public void testIdenticalSpecsAreNotDiffed() throws Exception {
+    testIdenticalSpecs(false, asList("1.1 -> 1.2"));
+  }
+
+  @Test
+  public void testSpecsWithDifferentDescriptionsAreNotDiffed() throws Exception {
+    testIdenticalSpecs(true, emptyList());
+  }
+
+  /**
+   * 1.0 and 1.1 are the same, but for their key order, and 1.2 only has a different description
+   */
+  private void testIdenticalSpecs(boolean ignoreDescriptions, List<String> expectedDiffs) throws Exception {
+    mockStatic(SwaggerDiff.class);
+    Config config = Config.builder()
+      .artifact(Artifact.builder()
+        .groupId("groupy")
+        .artifactId("covenant")
+        .build())
+      .nexusHome("http://nexus/there")
+      .target(Target.builder().targetdir(Files.createTempDirectory("LogGeneratorTest").toString()).build())
+      .ignoreDescriptions(ignoreDescriptions)
+      .build();
+
+    Scanner scanner = spy(Scanner.builder()
+      .config(config)
+      .build());
+
+    java.nio.file.Path specs = Files.createTempDirectory("LogGeneratorTestSpecs");
+    VersionedArtifact v10 = artifactFrom(spec(specs, "1.0", "{\"/a\":{},\"/b\":{}}", "Things"), "1.0");
+    VersionedArtifact v11 = artifactFrom(spec(specs, "1.1", "{\"/b\":{},\"/a\":{}}", "Things"), "1.1");
+    VersionedArtifact v12 = artifactFrom(spec(specs, "1.2", "{\"/b\":{},\"/a\":{}}", "Stuff"), "1.2");
+    doReturn(asList(
+      VersionStep.builder().from(v10).to(v11).build(),
+      VersionStep.builder().from(v11).to(v12).build()
+    )).when(scanner).getHistory();
+
+    List<String> diffed = Collections.synchronizedList(new ArrayList<>());
+    when(SwaggerDiff.compareV2(any(JsonNode.class), any(JsonNode.class))).then(a -> {
+      String from = a.<JsonNode>getArgument(0).path("info").path("version").asText();
+      String to = a.<JsonNode>getArgument(1).path("info").path("version").asText();
+      diffed.add(from + " -> " + to);
+      return mock(SwaggerDiff.class);
+    });
+
+    LogGenerator generator = spy(LogGenerator.builder().config(config).build());
+    doReturn(scanner).when(generator).buildScanner();
+    generator.generateChangeLog();
+
+    // then the structurally identical steps were never diffed
+    assertEquals(expectedDiffs, diffed);
   }
 
   @Test
@@ -160,12 +329,46 @@ public class LogGeneratorTest {
     return end;
   }
 
-  private VersionedArtifact artifact(String version) {
+  private VersionedArtifact artifact(java.nio.file.Path specs, String version) throws IOException {
+    return VersionedArtifact.builder()
+      .group("groupA")
+      .artifact("thisIsId")
+      .version(version)
+      .downloadFrom(spec(specs, version).toUri().toString())
+      .build();
+  }
+
+  private VersionedArtifact artifactFrom(java.nio.file.Path spec, String version) {
     return VersionedArtifact.builder()
       .group("groupA")
       .artifact("thisIsId")
       .version(version)
-      .downloadFrom(String.format("http://nexus/there/groupA/thisIsId/%s/thisIsId-%s.json", version, version))
+      .downloadFrom(spec.toUri().toString())
       .build();
   }
+
+  private VersionedArtifact snapshot(java.nio.file.Path specs, String version) throws IOException {
+    return VersionedArtifact.builder()
+      .group("groupA")
+      .artifact("thisIsId")
+      .path(spec(specs, version).toString())
+      .build();
+  }
+
+  /**
+   * Each version's spec has a different path, so they're never structurally identical
+   */
+  private java.nio.file.Path spec(java.nio.file.Path specs, String version) throws IOException {
+    return spec(specs, version, String.format("{\"/v%s\":{}}", version), "");
+  }
+
+  private java.nio.file.Path spec(java.nio.file.Path specs, String version, String paths, String description)
+    throws IOException {
+    java.nio.file.Path file = specs.resolve(String.format("thisIsId-%s.json", version));
+    Files.write(file, String.format(
+      "{\"swagger\":\"2.0\",\"info\":{\"version\":\"%s\",\"description\":\"%s\"},\"paths\":%s}",
+      version, description, paths
+    ).getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
 }
@@ -0,0 +1,44 @@
+package com.sonalake.swaggerlog.diff;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MemoryBudgetTest {
+
+  private static final long MB = 1024 * 1024;
+
+  @Test
+  public void testWeights() {
+    MemoryBudget budget = new MemoryBudget(64);
+
+    // small steps cost at least 1MB, and big ones are capped at the whole budget
+    assertEquals(1, budget.weightOf(0));
+    assertEquals(1, budget.weightOf(1024));
+    assertEquals(MemoryBudget.HEAP_BYTES_PER_SPEC_BYTE, budget.weightOf(MB));
+    assertEquals(64, budget.weightOf(30 * MB));
+  }
+
+  @Test
+  public void testStepsWaitForRoom() throws Exception {
+    MemoryBudget budget = new MemoryBudget(64);
+
+    // given a step is using the whole budget
+    MemoryBudget.Lease big = budget.acquire(30 * MB);
+
+    // then the next step has to wait
+    CompletableFuture<MemoryBudget.Lease> next = CompletableFuture.supplyAsync(() -> budget.acquire(MB));
+    assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+    assertFalse(next.isDone());
+
+    // until the first is done
+    big.close();
+    next.get(5, TimeUnit.SECONDS).close();
+  }
+}
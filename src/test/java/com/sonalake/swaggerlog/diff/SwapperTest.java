@@ -0,0 +1,100 @@
+package com.sonalake.swaggerlog.diff;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SwapperTest {
+
+  @Test
+  public void testAllRulesInOnePass() {
+    Swapper swapper = Swapper.builder()
+      .replacement("\\n\\s*Parameters", "\n\nParameters\n")
+      .replacement("—", "")
+      .replacement("\\n----", "\n")
+      .build();
+
+    assertEquals(
+      "`GET` /orders \n\nParameters\n\n\n    Add limit\n",
+      swapper.swap("`GET` /orders —\n    Parameters\n----\n    Add limit\n")
+    );
+  }
+
+  @Test
+  public void testFirstRuleWinsAndOutputIsNotMatchedAgain() {
+    Swapper swapper = Swapper.builder()
+      .replacement("ab", "b")
+      .replacement("a", "x")
+      .replacement("b", "y")
+      .build();
+
+    // "ab" matches before "a" can, and its "b" isn't swapped again
+    assertEquals("byx", swapper.swap("abba"));
+  }
+
+  @Test
+  public void testGroupReferencesAreTheRulesOwn() {
+    Swapper swapper = Swapper.builder()
+      .replacement("(\\w+)@(\\w+)", "$2 at $1")
+      .replacement("v(\\d+)", "version $1 \\$")
+      .build();
+
+    assertEquals("host at user, version 2 $", swapper.swap("user@host, v2"));
+  }
+
+  @Test
+  public void testGroupReferencesAreReadLikeMatcher() {
+    Swapper swapper = Swapper.builder()
+      .replacement("x", "-")
+      .replacement("(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)(k)", "$11$10$0")
+      .replacement("v(\\d)", "$12")
+      .replacement("(?<user>\\w+)@(?<host>\\w+)", "${host} at ${user}")
+      .build();
+
+    // each rule reads its references the same way it would on its own
+    assertEquals("kjabcdefghijk", "abcdefghijk".replaceAll("(a)(b)(c)(d)(e)(f)(g)(h)(i)(j)(k)", "$11$10$0"));
+    assertEquals("32", "v3".replaceAll("v(\\d)", "$12"));
+    assertEquals("- kjabcdefghijk 32 host at user", swapper.swap("x abcdefghijk v3 user@host"));
+  }
+
+  @Test
+  public void testBackReferencesAreTheRulesOwn() {
+    Swapper swapper = Swapper.builder()
+      .replacement("—", "")
+      .replacement("(\\w)\\1", "<$1$1>")
+      .replacement("(?<open>[(\\[])x\\k<open>", "${open}")
+      .build();
+
+    // the same as applying the rules one after another
+    assertEquals("<aa><bb><cc> (", swapper.swap("aabb—cc (x("));
+    assertEquals("<aa><bb><cc> (", "aabb—cc (x(".replaceAll("—", "")
+      .replaceAll("(\\w)\\1", "<$1$1>")
+      .replaceAll("(?<open>[(\\[])x\\k<open>", "${open}"));
+  }
+
+  @Test
+  public void testRulesCanUseTheSameGroupName() {
+    Swapper swapper = Swapper.builder()
+      .replacement("v(?<v>\\d+)", "version ${v}")
+      .replacement("r(?<v>\\d+)", "release ${v}")
+      .build();
+
+    assertEquals("version 1, release 2", swapper.swap("v1, r2"));
+    assertThrows(IllegalArgumentException.class, () -> Swapper.builder().replacement("(?<v>a)", "${w}").build());
+  }
+
+  @Test
+  public void testBadReplacements() {
+    assertThrows(IllegalArgumentException.class, () -> Swapper.builder().replacement("(a)", "$2").build());
+    assertThrows(IllegalArgumentException.class, () -> Swapper.builder().replacement("(a)", "$").build());
+    assertThrows(IllegalArgumentException.class, () -> Swapper.builder().replacement("(a)", "$x").build());
+    assertThrows(IllegalArgumentException.class, () -> Swapper.builder().replacement("(a)", "${a").build());
+    assertThrows(IllegalArgumentException.class, () -> Swapper.builder().replacement("(a)", "a\\").build());
+  }
+
+  @Test
+  public void testNoRules() {
+    assertEquals("unchanged", Swapper.builder().build().swap("unchanged"));
+  }
+}
@@ -1,31 +1,48 @@
 package com.sonalake.swaggerlog.gradle;
 
-import com.mashape.unirest.http.exceptions.UnirestException;
 import com.sonalake.swaggerlog.config.Config;
 import com.sonalake.swaggerlog.diff.LogGenerator;
+import com.sonalake.swaggerlog.diff.SharedResources;
 import com.sonalake.swaggerlog.nexus.Scanner;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.mutable.MutableObject;
 import org.gradle.api.Project;
+import org.gradle.api.tasks.CacheableTask;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static com.sonalake.swaggerlog.gradle.ChangelogPlugin.EXTENSION_NAME;
 import static com.sonalake.swaggerlog.gradle.ChangelogPlugin.TASK_NAME;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @RunWith(PowerMockRunner.class)
+// the local repository's metadata is parsed with the JDK's own XML parser
+@PowerMockIgnore({"javax.xml.*", "org.xml.*", "org.w3c.*", "com.sun.org.apache.xerces.*"})
 @Slf4j
 public class ChangelogPluginTest {
 
@@ -59,6 +76,7 @@ public class ChangelogPluginTest {
     extension.setNexusHome("http://server.nexus");
     extension.setTargetdir("/tmp/over/here");
     extension.setSnapshotVersionFile("/tmp/a/version.json");
+    extension.setWorkerIsolation("inline");
 
     log.debug("Testing config: " + extension);
 
@@ -82,7 +100,7 @@ public class ChangelogPluginTest {
       });
       return generatorStore.getValue();
     }).when(task)
-      .buildLogGenerator(any(Config.class));
+      .buildLogGenerator(any(Config.class), any(SharedResources.class));
 
     task.generateChangelog();
 
@@ -96,6 +114,219 @@ public class ChangelogPluginTest {
   }
 
 
+  @Test
+  public void testTaskInputsAndOutputs() throws IOException {
+    ChangelogExtension extension = (ChangelogExtension) project.getExtensions().findByName(EXTENSION_NAME);
+    assertNotNull("No extension found", extension);
+
+    File snapshot = File.createTempFile("swagger", ".json");
+    extension.setGroupId("com.sonalake");
+    extension.setArtifactId("apidoc");
+    extension.setClassifier("openapi");
+    extension.setNexusHome("http://server.nexus");
+    extension.setTargetdir("/tmp/over/here");
+    extension.setSnapshotVersionFile(snapshot.getAbsolutePath());
+    extension.setBaseChapterLevel(2);
+
+    ChangelogTask task = (ChangelogTask) project.getTasks().findByName(TASK_NAME);
+    assertNotNull("No task found", task);
+
+    // then the task is cacheable, and its inputs and outputs come from the extension
+    assertTrue("Task should be cacheable", ChangelogTask.class.isAnnotationPresent(CacheableTask.class));
+    assertEquals("com.sonalake", task.getGroupId());
+    assertEquals("apidoc", task.getArtifactId());
+    assertEquals("openapi", task.getClassifier());
+    assertEquals("http://server.nexus", task.getNexusHome());
+    assertEquals("releases", task.getRepositoryId());
+    assertEquals(2, task.getBaseChapterLevel());
+    assertEquals("MARKDOWN", task.getRenderer());
+    assertTrue(task.getReplacements().isEmpty());
+    assertFalse(task.isNexusVersion3());
+    assertFalse(task.isIncremental());
+    assertEquals(snapshot.getAbsoluteFile(), task.getSnapshotVersionFile());
+    assertEquals(new File("/tmp/over/here"), task.getTargetdir());
+  }
+
+  @Test
+  public void testArtifactContainer() {
+    ChangelogExtension extension = (ChangelogExtension) project.getExtensions().findByName(EXTENSION_NAME);
+    assertNotNull("No extension found", extension);
+
+    // given only the container is used for the artifacts
+    extension.setNexusHome("http://server.nexus");
+    extension.setTargetdir("/tmp/over/here");
+    extension.setWorkerIsolation("inline");
+    extension.getArtifacts().create("orders", a -> {
+      a.setGroupId("com.sonalake");
+      a.setArtifactId("orders");
+    });
+    extension.getArtifacts().create("billing", a -> {
+      a.setGroupId("com.sonalake");
+      a.setArtifactId("billing");
+      a.setClassifier("openapi");
+      a.setRepositoryId("other");
+    });
+
+    ChangelogTask task = spy((ChangelogTask) project.getTasks().findByName(TASK_NAME));
+    assertNotNull("No task found", task);
+    assertEquals(
+      asList("billing=com.sonalake:billing:openapi@other", "orders=com.sonalake:orders:@releases"),
+      task.getArtifacts()
+    );
+
+    // when the task runs, then a changelog is generated for each artifact, with the same shared resources
+    when(scanner.getHistory()).thenReturn(Collections.emptyList());
+    List<Config> configs = new ArrayList<>();
+    List<SharedResources> resources = new ArrayList<>();
+    doAnswer(a -> {
+      configs.add(a.getArgument(0));
+      resources.add(a.getArgument(1));
+      return new LogGenerator(a.getArgument(0)) {
+        @Override
+        protected Scanner buildScanner() {
+          return scanner;
+        }
+      };
+    }).when(task)
+      .buildLogGenerator(any(Config.class), any(SharedResources.class));
+
+    task.generateChangelog();
+
+    assertEquals(2, configs.size());
+    assertEquals("billing", configs.get(0).getArtifact().getArtifactId());
+    assertEquals("other", configs.get(0).getRepositoryId());
+    assertEquals(new File("/tmp/over/here/billing").getPath(), configs.get(0).getTarget().getTargetdir());
+    assertEquals("orders", configs.get(1).getArtifact().getArtifactId());
+    assertEquals("releases", configs.get(1).getRepositoryId());
+    assertEquals(new File("/tmp/over/here/orders").getPath(), configs.get(1).getTarget().getTargetdir());
+    assertSame(resources.get(0), resources.get(1));
+  }
+
+  @Test
+  public void testRelativePathsAreResolvedAgainstTheProject() {
+    ChangelogExtension extension = (ChangelogExtension) project.getExtensions().findByName(EXTENSION_NAME);
+    assertNotNull("No extension found", extension);
+
+    // given the paths are relative to the project
+    extension.setGroupId("com.sonalake");
+    extension.setArtifactId("apidoc");
+    extension.setNexusHome("http://server.nexus");
+    extension.setTargetdir("build/changelog");
+    extension.setSnapshotVersionFile("build/swagger.json");
+    extension.setWorkerIsolation("inline");
+
+    ChangelogTask task = spy((ChangelogTask) project.getTasks().findByName(TASK_NAME));
+    assertNotNull("No task found", task);
+
+    when(scanner.getHistory()).thenReturn(Collections.emptyList());
+    List<Config> configs = new ArrayList<>();
+    doAnswer(a -> {
+      configs.add(a.getArgument(0));
+      return new LogGenerator(a.getArgument(0)) {
+        @Override
+        protected Scanner buildScanner() {
+          return scanner;
+        }
+      };
+    }).when(task)
+      .buildLogGenerator(any(Config.class), any(SharedResources.class));
+
+    task.generateChangelog();
+
+    // then the changelog is written to the directory gradle is tracking, not relative to the working directory
+    assertEquals(1, configs.size());
+    File targetdir = new File(project.getProjectDir(), "build/changelog");
+    assertEquals(targetdir, task.getTargetdir());
+    assertEquals(targetdir.getAbsolutePath(), configs.get(0).getTarget().getTargetdir());
+    assertEquals(
+      new File(project.getProjectDir(), "build/swagger.json").getAbsolutePath(),
+      configs.get(0).getSnapshotVersionFile()
+    );
+  }
+
+  @Test
+  public void testLocalRepositoryWithoutNexus() throws IOException {
+    ChangelogExtension extension = (ChangelogExtension) project.getExtensions().findByName(EXTENSION_NAME);
+    assertNotNull("No extension found", extension);
+
+    // given a local repository with one released swagger, and no nexus
+    Path repository = Files.createTempDirectory("m2-");
+    try {
+      Path versionDir = Files.createDirectories(repository.resolve("com/sonalake/apidoc/1.0"));
+      Files.write(versionDir.resolve("apidoc-1.0.json"), "{}".getBytes(StandardCharsets.UTF_8));
+
+      extension.setGroupId("com.sonalake");
+      extension.setArtifactId("apidoc");
+      extension.setLocalRepository(repository.toString());
+      extension.setTargetdir("/tmp/over/here");
+
+      ChangelogTask task = (ChangelogTask) project.getTasks().findByName(TASK_NAME);
+      assertNotNull("No task found", task);
+
+      // then the task has no nexus, and finds the versions in the local repository
+      assertNull(task.getNexusHome());
+      assertEquals(repository.toString(), task.getLocalRepository());
+      assertEquals(asList("1.0"), task.getPublishedVersions().get("com.sonalake:apidoc:@local"));
+
+      // and the swagger itself is an input, not where the repository is
+      assertEquals(asList(versionDir.resolve("apidoc-1.0.json").toFile()), task.getLocalRepositorySwaggers());
+      assertFalse("Path is an input", task.getPublishedVersions().keySet().toString().contains(repository.toString()));
+    } finally {
+      FileUtils.deleteDirectory(repository.toFile());
+    }
+  }
+
+  @Test
+  public void testNexusOrLocalRepositoryIsRequired() {
+    ChangelogExtension extension = (ChangelogExtension) project.getExtensions().findByName(EXTENSION_NAME);
+    assertNotNull("No extension found", extension);
+
+    // given neither nexus nor a local repository
+    extension.setGroupId("com.sonalake");
+    extension.setArtifactId("apidoc");
+    extension.setTargetdir("/tmp/over/here");
+
+    IllegalArgumentException expected = assertThrows(IllegalArgumentException.class, extension::buildConfigs);
+    assertEquals("Either nexusHome or localRepository must be set", expected.getMessage());
+  }
+
+  @Test
+  public void testWorkerIsolation() {
+    // by default the work is done on the worker API, with no isolation
+    assertEquals(WorkerIsolation.NONE, WorkerIsolation.of(null));
+    assertEquals(WorkerIsolation.PROCESS, WorkerIsolation.of("process"));
+    assertEquals(WorkerIsolation.INLINE, WorkerIsolation.of("Inline"));
+
+    IllegalArgumentException expected = assertThrows(IllegalArgumentException.class, () -> WorkerIsolation.of("thread"));
+    assertTrue("Wrong message", expected.getMessage().startsWith("Unknown worker isolation: thread"));
+  }
+
+  @Test
+  public void testConfigCanBeSentToWorkers() throws Exception {
+    ChangelogExtension extension = (ChangelogExtension) project.getExtensions().findByName(EXTENSION_NAME);
+    extension.setGroupId("com.sonalake");
+    extension.setArtifactId("apidoc");
+    extension.setNexusHome("http://server.nexus");
+    extension.setTargetdir("/tmp/over/here");
+    VersionedArtifact version = VersionedArtifact.builder().group("com.sonalake").artifact("apidoc").version("1.0").build();
+    Config config = extension.buildConfig().toBuilder().knownVersions(asList(version)).build();
+
+    // the work item parameters are isolated by serializing them
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(config);
+    }
+    Config copy;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (Config) in.readObject();
+    }
+
+    assertEquals("apidoc", copy.getArtifact().getArtifactId());
+    assertEquals("/tmp/over/here", copy.getTarget().getTargetdir());
+    assertEquals(asList(version), copy.getKnownVersions());
+    assertEquals(0, copy.getKnownVersions().get(0).compareTo(version));
+  }
+
   @Test
   public void testErrorHandling()  {
     // then the extension should be ok, but we'll configure it in the tests
@@ -108,6 +339,7 @@ public class ChangelogPluginTest {
     extension.setNexusHome("http://server.nexus");
     extension.setTargetdir("/tmp/over/here");
     extension.setSnapshotVersionFile("/tmp/a/version.json");
+    extension.setWorkerIsolation("inline");
 
     log.debug("Testing config: " + extension);
 
@@ -136,7 +368,7 @@ public class ChangelogPluginTest {
       });
       return generatorStore.getValue();
     }).when(task)
-      .buildLogGenerator(any(Config.class));
+      .buildLogGenerator(any(Config.class), any(SharedResources.class));
 
     // check we got the error we expected
     IllegalArgumentException expected = assertThrows(IllegalArgumentException.class, task::generateChangelog);
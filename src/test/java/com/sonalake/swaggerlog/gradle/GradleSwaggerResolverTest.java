@@ -0,0 +1,126 @@
+package com.sonalake.swaggerlog.gradle;
+
+import com.sonalake.swaggerlog.config.Artifact;
+import com.sonalake.swaggerlog.config.Config;
+import com.sonalake.swaggerlog.config.Target;
+import com.sonalake.swaggerlog.nexus.VersionedArtifact;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GradleSwaggerResolverTest {
+  private static final String GROUP_ID = "com.sonalake";
+  private static final String ARTIFACT_ID = "order-state-service";
+  private static final String CLASSIFIER_ID = "openapi";
+
+  private Path repository;
+  private Path projectDir;
+  private Project project;
+
+  @Before
+  public void setup() throws IOException {
+    repository = Files.createTempDirectory("maven-");
+    projectDir = Files.createTempDirectory("project-");
+    project = ProjectBuilder.builder()
+      .withName("test")
+      .withProjectDir(projectDir.toFile())
+      .build();
+    project.getRepositories().maven(maven -> maven.setUrl(repository.toUri()));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(repository.toFile());
+    FileUtils.deleteDirectory(projectDir.toFile());
+  }
+
+  @Test
+  public void testEveryVersionInTheHistoryIsResolved() throws IOException {
+    // given a file-based maven repository with three of the four released versions
+    for (String version : asList("1.0.1", "1.0.2", "1.0.3")) {
+      publish(version);
+    }
+    List<VersionedArtifact> published = asList(
+      nexusVersion("1.0.1"), nexusVersion("1.0.2"), nexusVersion("1.0.3"), nexusVersion("1.0.4")
+    );
+
+    // when the history starts at 1.0.2
+    Config config = config().toBuilder().minVersion("1.0.2").build();
+    List<VersionedArtifact> resolved = new GradleSwaggerResolver(project).resolve(config, published);
+
+    // then the versions in the history come from gradle, not just the newest of them, and the one that
+    // isn't in the repository, like the one that isn't in the history, is still downloaded from nexus
+    assertEquals(
+      asList("1.0.1", "1.0.2", "1.0.3", "1.0.4"),
+      resolved.stream().map(VersionedArtifact::getVersion).collect(Collectors.toList())
+    );
+    assertEquals(nexusVersion("1.0.1").getDownloadFrom(), resolved.get(0).getDownloadFrom());
+    assertEquals("{\"version\": \"1.0.2\"}", read(resolved.get(1)));
+    assertEquals("{\"version\": \"1.0.3\"}", read(resolved.get(2)));
+    assertEquals(nexusVersion("1.0.4").getDownloadFrom(), resolved.get(3).getDownloadFrom());
+  }
+
+  @Test
+  public void testOfflineVersionsAreNotDownloadedByThePlugin() throws IOException {
+    // given gradle is offline, and one of the versions isn't in the repository
+    project.getGradle().getStartParameter().setOffline(true);
+    publish("1.0.1");
+    List<VersionedArtifact> published = asList(nexusVersion("1.0.1"), nexusVersion("1.0.2"));
+
+    // then the build fails, instead of the plugin downloading the missing version over HTTP
+    IllegalArgumentException expected = assertThrows(IllegalArgumentException.class,
+      () -> new GradleSwaggerResolver(project).resolve(config(), published));
+    assertTrue("Wrong message", expected.getMessage().startsWith("Failed to resolve swagger through gradle"));
+  }
+
+  private static Config config() {
+    return Config.builder()
+      .artifact(Artifact.builder()
+        .groupId(GROUP_ID)
+        .artifactId(ARTIFACT_ID)
+        .classifier(CLASSIFIER_ID)
+        .build())
+      .nexusHome("http://nexus/there")
+      .target(Target.builder().targetdir("/tmp/here").build())
+      .build();
+  }
+
+  private void publish(String version) throws IOException {
+    Path versionDir = Files.createDirectories(repository.resolve("com/sonalake").resolve(ARTIFACT_ID).resolve(version));
+    Files.write(versionDir.resolve(format("%s-%s.pom", ARTIFACT_ID, version)), format("<project>"
+        + "<modelVersion>4.0.0</modelVersion><groupId>%s</groupId><artifactId>%s</artifactId><version>%s</version>"
+        + "</project>", GROUP_ID, ARTIFACT_ID, version).getBytes(StandardCharsets.UTF_8));
+    Files.write(versionDir.resolve(format("%s-%s-%s.json", ARTIFACT_ID, version, CLASSIFIER_ID)),
+      format("{\"version\": \"%s\"}", version).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static VersionedArtifact nexusVersion(String version) {
+    return VersionedArtifact.builder()
+      .group(GROUP_ID)
+      .artifact(ARTIFACT_ID)
+      .version(version)
+      .downloadFrom(format("http://nexus/there/%s-%s-%s.json", ARTIFACT_ID, version, CLASSIFIER_ID))
+      .build();
+  }
+
+  private static String read(VersionedArtifact version) throws IOException {
+    return new String(Files.readAllBytes(Paths.get(version.getDownloadFrom())), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,160 @@
+package com.sonalake.swaggerlog.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * A local stand-in for nexus: serves canned responses for the configured paths, and records every exchange so
+ * tests can check what was asked for.
+ */
+public class StubNexus implements AutoCloseable {
+  private final HttpServer server;
+  private final List<Route> routes = new CopyOnWriteArrayList<>();
+  private final List<Exchange> exchanges = Collections.synchronizedList(new ArrayList<>());
+
+  public StubNexus() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * @return the nexus home to configure the plugin with
+   */
+  public String getHome() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /**
+   * Serve the body for any request to this path
+   */
+  public StubNexus respond(String path, String body) {
+    return respond(Route.builder().path(path).body(body).build());
+  }
+
+  /**
+   * Serve the route, routes are matched in the order they were added
+   */
+  public StubNexus respond(Route route) {
+    routes.add(route);
+    return this;
+  }
+
+  /**
+   * @param path the path of interest
+   * @return every exchange for that path, in the order they happened
+   */
+  public List<Exchange> exchangesFor(String path) {
+    synchronized (exchanges) {
+      return exchanges.stream().filter(e -> path.equals(e.getPath())).collect(Collectors.toList());
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange http) throws IOException {
+    Exchange exchange = Exchange.builder()
+      .path(http.getRequestURI().getPath())
+      .query(parseQuery(http.getRequestURI().getRawQuery()))
+      .headers(http.getRequestHeaders().entrySet().stream()
+        .collect(Collectors.toMap(e -> e.getKey().toLowerCase(), e -> e.getValue().get(0))))
+      .build();
+    exchanges.add(exchange);
+
+    Route route = routes.stream().filter(r -> r.matches(exchange)).findFirst()
+      .orElse(Route.builder().path(exchange.getPath()).status(404).build());
+
+    byte[] body = route.getBody().getBytes(StandardCharsets.UTF_8);
+    route.getResponseHeaders().forEach((name, value) -> http.getResponseHeaders().add(name, value));
+    http.sendResponseHeaders(route.getStatus(), body.length == 0 ? -1 : body.length);
+    try (OutputStream out = http.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> values = new LinkedHashMap<>();
+    if (null != query) {
+      for (String pair : query.split("&")) {
+        String[] parts = pair.split("=", 2);
+        values.put(
+          URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+          parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : ""
+        );
+      }
+    }
+    return values;
+  }
+
+  /**
+   * A canned response
+   */
+  @Builder
+  @Getter
+  public static class Route {
+    private final String path;
+
+    /**
+     * The request must have all of these query values to match this route
+     */
+    @Singular("query")
+    private final Map<String, String> queries;
+
+    /**
+     * The request must have all of these headers to match this route, the names are lower-case
+     */
+    @Singular
+    private final Map<String, String> requestHeaders;
+
+    @Builder.Default
+    private final int status = 200;
+
+    @Singular
+    private final Map<String, String> responseHeaders;
+
+    @Builder.Default
+    private final String body = "";
+
+    boolean matches(Exchange exchange) {
+      return path.equals(exchange.getPath())
+        && queries.entrySet().stream().allMatch(e -> e.getValue().equals(exchange.getQuery().get(e.getKey())))
+        && requestHeaders.entrySet().stream().allMatch(e -> e.getValue().equals(exchange.getHeaders().get(e.getKey())));
+    }
+  }
+
+  /**
+   * A request the stub received
+   */
+  @Builder
+  @Getter
+  @ToString
+  public static class Exchange {
+    private final String path;
+    private final Map<String, String> query;
+
+    /**
+     * The request headers, with lower-case names
+     */
+    private final Map<String, String> headers;
+  }
+}
@@ -1,43 +1,57 @@
 package com.sonalake.swaggerlog.nexus;
 
-import com.mashape.unirest.http.HttpMethod;
-import com.mashape.unirest.http.HttpResponse;
-import com.mashape.unirest.http.Unirest;
-import com.mashape.unirest.request.GetRequest;
 import com.sonalake.swaggerlog.config.Artifact;
 import com.sonalake.swaggerlog.config.Config;
 import com.sonalake.swaggerlog.config.Target;
+import com.sonalake.swaggerlog.http.StubNexus;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static java.lang.Thread.currentThread;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.verify;
-import static org.powermock.api.mockito.PowerMockito.*;
 
-@RunWith(PowerMockRunner.class)
-@PrepareForTest(Unirest.class)
 public class ScannerTest {
 
   public static final String GROUP_ID = "com.sonalake";
   public static final String ARTIFACT_ID = "order-state-service";
   public static final String CLASSIFIER_ID = "openapi";
 
+  private static final String V2_SEARCH = "/service/local/lucene/search";
+  private static final String V3_SEARCH = "/service/rest/v1/search";
+
+  private StubNexus nexus;
+
+  @Before
+  public void startNexus() throws IOException {
+    nexus = new StubNexus();
+  }
+
+  @After
+  public void stopNexus() {
+    nexus.close();
+  }
+
   @Test
   public void testV2() throws Exception {
 
-    GetRequest request = givenNexusResponse(fromResource("results.v2.json"));
+    nexus.respond(V2_SEARCH, fromResource("results.v2.json"));
 
     // given this config
     List<VersionStep> history = Scanner.builder()
@@ -46,16 +60,17 @@ public class ScannerTest {
           .groupId(GROUP_ID)
           .artifactId(ARTIFACT_ID)
           .build())
-        .nexusHome("http://nexus/there")
+        .nexusHome(nexus.getHome())
         .target(Target.builder().targetdir("/tmp/here").build())
         .snapshotVersionFile("snapshot-file")
         .build())
       .build()
       .getHistory();
 
-    // then the query was valid
-    verify(request).queryString(eq("g"), eq(GROUP_ID));
-    verify(request).queryString(eq("a"), eq(ARTIFACT_ID));
+    // then nexus was only asked once, and the query was valid
+    StubNexus.Exchange search = onlyExchange(V2_SEARCH);
+    assertEquals(GROUP_ID, search.getQuery().get("g"));
+    assertEquals(ARTIFACT_ID, search.getQuery().get("a"));
 
     // and the results parse ok
     assertEquals(2, history.size());
@@ -85,7 +100,7 @@ public class ScannerTest {
 
   @Test
   public void testWithClassifierV2() throws Exception {
-    GetRequest request = givenNexusResponse(fromResource("results.v2.json"));
+    nexus.respond(V2_SEARCH, fromResource("results.v2.json"));
 
     // given this config
     List<VersionStep> history = Scanner.builder()
@@ -95,7 +110,7 @@ public class ScannerTest {
           .artifactId(ARTIFACT_ID)
           .classifier(CLASSIFIER_ID)
           .build())
-        .nexusHome("http://nexus/there")
+        .nexusHome(nexus.getHome())
         .repositoryId("releases")
         .target(Target.builder().targetdir("/tmp/here").build())
         .snapshotVersionFile("snapshot-file")
@@ -103,10 +118,11 @@ public class ScannerTest {
       .build()
       .getHistory();
 
-    // then the query was valid
-    verify(request).queryString(eq("g"), eq(GROUP_ID));
-    verify(request).queryString(eq("a"), eq(ARTIFACT_ID));
-    verify(request).queryString(eq("c"), eq(CLASSIFIER_ID));
+    // then nexus was only asked once, and the query was valid
+    StubNexus.Exchange search = onlyExchange(V2_SEARCH);
+    assertEquals(GROUP_ID, search.getQuery().get("g"));
+    assertEquals(ARTIFACT_ID, search.getQuery().get("a"));
+    assertEquals(CLASSIFIER_ID, search.getQuery().get("c"));
 
     // and the results parse ok
     assertEquals(2, history.size());
@@ -139,7 +155,7 @@ public class ScannerTest {
   @Test
   public void testBadJson() throws Exception {
     // given a bad response
-    givenNexusResponse("this be no json");
+    nexus.respond(V2_SEARCH, "this be no json");
 
     // given this config
     Config config = Config.builder()
@@ -147,7 +163,7 @@ public class ScannerTest {
         .groupId(GROUP_ID)
         .artifactId(ARTIFACT_ID)
         .build())
-      .nexusHome("http://nexus/there")
+      .nexusHome(nexus.getHome())
       .target(Target.builder().targetdir("/tmp/here").build())
       .snapshotVersionFile("snapshot-file")
       .build();
@@ -161,17 +177,73 @@ public class ScannerTest {
     assertEquals(format("Failed to parse results from nexus: %s", config), error.getMessage());
   }
 
+  @Test
+  public void testTransportIsOnlyBuiltOnce() {
+    // given a scanner that wasn't given a transport
+    Scanner scanner = Scanner.builder()
+      .config(Config.builder()
+        .artifact(Artifact.builder()
+          .groupId(GROUP_ID)
+          .artifactId(ARTIFACT_ID)
+          .build())
+        .nexusHome(nexus.getHome())
+        .target(Target.builder().targetdir("/tmp/here").build())
+        .build())
+      .build();
+
+    // then every caller gets the same one
+    assertSame(scanner.getTransport(), scanner.getTransport());
+  }
+
+
 
 
+  @Test
+  public void testV2Rejected() throws Exception {
+    // given nexus rejects the search
+    nexus.respond(StubNexus.Route.builder().path(V2_SEARCH).status(403).build());
 
-  private GetRequest givenNexusResponse(String responseData) throws Exception {
-    mockStatic(Unirest.class);
-    HttpResponse response = mock(HttpResponse.class);
-    when(response.getBody()).thenReturn(responseData);
-    GetRequest request = spy(new GetRequest(HttpMethod.GET, "here"));
-    doReturn(response).when(request).asString();
-    when(Unirest.class, "get", anyString()).thenReturn(request);
-    return request;
+    Config config = Config.builder()
+      .artifact(Artifact.builder()
+        .groupId(GROUP_ID)
+        .artifactId(ARTIFACT_ID)
+        .build())
+      .nexusHome(nexus.getHome())
+      .target(Target.builder().targetdir("/tmp/here").build())
+      .build();
+
+    // when we look for data we get the expected error
+    IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> Scanner.builder()
+      .config(config)
+      .build()
+      .getHistory());
+    assertEquals(format("Failed to parse results from nexus: %s", config), error.getMessage());
+    assertEquals(AssertionError.class, error.getCause().getClass());
+
+    // and nexus was only asked once
+    onlyExchange(V2_SEARCH);
+  }
+
+  private StubNexus.Exchange onlyExchange(String path) {
+    List<StubNexus.Exchange> exchanges = nexus.exchangesFor(path);
+    assertEquals("Expected exactly one request to " + path, 1, exchanges.size());
+    return exchanges.get(0);
+  }
+
+  private String v3Page(String continuationToken, String... versions) {
+    String items = Arrays.stream(versions)
+      .map(version -> format(
+        "{\"group\":\"%s\",\"name\":\"%s\",\"version\":\"%s\",\"assets\":[{"
+          + "\"path\":\"%s-%s.json\",\"downloadUrl\":\"http://nexus/%s-%s.json\"}]}",
+        GROUP_ID, ARTIFACT_ID, version,
+        ARTIFACT_ID, version,
+        ARTIFACT_ID, version))
+      .collect(Collectors.joining(","));
+    return format(
+      "{\"items\":[%s],\"continuationToken\":%s}",
+      items,
+      null == continuationToken ? "null" : "\"" + continuationToken + "\""
+    );
   }
 
   private String artifact(String groupId, String artifactId, String version) {
@@ -187,7 +259,7 @@ public class ScannerTest {
   @Test
   public void testV3() throws Exception {
 
-    GetRequest request = givenNexusResponse(fromResource("results.v3.json"));
+    nexus.respond(V3_SEARCH, fromResource("results.v3.json"));
 
     // given this config
     List<VersionStep> history = Scanner.builder()
@@ -197,7 +269,7 @@ public class ScannerTest {
           .groupId(GROUP_ID)
           .artifactId(ARTIFACT_ID)
           .build())
-        .nexusHome("http://nexus/there")
+        .nexusHome(nexus.getHome())
         .target(Target.builder().targetdir("/tmp/here").build())
         .snapshotVersionFile("snapshot-file")
         .build())
@@ -205,8 +277,9 @@ public class ScannerTest {
       .getHistory();
 
     // then the query was valid
-    verify(request).queryString(eq("group"), eq(GROUP_ID));
-    verify(request).queryString(eq("maven.artifactId"), eq(ARTIFACT_ID));
+    StubNexus.Exchange search = onlyExchange(V3_SEARCH);
+    assertEquals(GROUP_ID, search.getQuery().get("group"));
+    assertEquals(ARTIFACT_ID, search.getQuery().get("maven.artifactId"));
 
     // and the results parse ok
     assertEquals(2, history.size());
@@ -233,10 +306,96 @@ public class ScannerTest {
     );
   }
 
+  @Test
+  public void testV3Pagination() throws Exception {
+    // given the results come back in two pages
+    nexus
+      .respond(StubNexus.Route.builder().path(V3_SEARCH).query("continuationToken", "page-two-token")
+        .body(v3Page(null, "1.0.2")).build())
+      .respond(V3_SEARCH, v3Page("page-two-token", "1.0.1"));
+
+    // given this config
+    List<VersionStep> history = Scanner.builder()
+      .config(Config.builder()
+        .isVersion3(true)
+        .artifact(Artifact.builder()
+          .groupId(GROUP_ID)
+          .artifactId(ARTIFACT_ID)
+          .build())
+        .nexusHome(nexus.getHome())
+        .target(Target.builder().targetdir("/tmp/here").build())
+        .build())
+      .build()
+      .getHistory();
+
+    // then the second page was asked for using the token from the first
+    List<StubNexus.Exchange> searches = nexus.exchangesFor(V3_SEARCH);
+    assertEquals(2, searches.size());
+    assertFalse(searches.get(0).getQuery().containsKey("continuationToken"));
+    assertEquals("page-two-token", searches.get(1).getQuery().get("continuationToken"));
+
+    // and the versions from both pages are in the history
+    assertEquals(
+      asList(
+        VersionStep.builder()
+          .from(VersionedArtifact.builder().group(GROUP_ID).artifact(ARTIFACT_ID).version("1.0.1")
+            .downloadFrom("http://nexus/order-state-service-1.0.1.json")
+            .build())
+          .to(VersionedArtifact.builder().group(GROUP_ID).artifact(ARTIFACT_ID).version("1.0.2")
+            .downloadFrom("http://nexus/order-state-service-1.0.2.json")
+            .build())
+          .build()
+      ),
+      history
+    );
+  }
+
+  @Test
+  public void testV3PagesOutOfVersionOrder() throws Exception {
+    // given nexus sorts the versions as text, so 1.11 comes after 1.8 on the first page
+    nexus
+      .respond(StubNexus.Route.builder().path(V3_SEARCH).query("continuationToken", "page-two-token")
+        .body(v3Page(null, "1.10", "1.1")).build())
+      .respond(V3_SEARCH, v3Page("page-two-token", "1.9", "1.8", "1.11"));
+
+    // when only the last two releases are selected
+    List<VersionStep> history = Scanner.builder()
+      .config(Config.builder()
+        .isVersion3(true)
+        .artifact(Artifact.builder()
+          .groupId(GROUP_ID)
+          .artifactId(ARTIFACT_ID)
+          .build())
+        .nexusHome(nexus.getHome())
+        .lastReleases(2)
+        .target(Target.builder().targetdir("/tmp/here").build())
+        .build())
+      .build()
+      .getHistory();
+
+    // then the paging doesn't stop early, and 1.10 isn't missed
+    List<StubNexus.Exchange> searches = nexus.exchangesFor(V3_SEARCH);
+    assertEquals(2, searches.size());
+    assertEquals("version", searches.get(0).getQuery().get("sort"));
+    assertEquals(
+      asList(
+        VersionStep.builder()
+          .from(VersionedArtifact.builder().group(GROUP_ID).artifact(ARTIFACT_ID).version("1.10")
+            .downloadFrom("http://nexus/order-state-service-1.10.json")
+            .build())
+          .to(VersionedArtifact.builder().group(GROUP_ID).artifact(ARTIFACT_ID).version("1.11")
+            .downloadFrom("http://nexus/order-state-service-1.11.json")
+            .build())
+          .build()
+      ),
+      history
+    );
+  }
+
   @Test
   public void testV3WithClassifier() throws Exception {
 
-    GetRequest request = givenNexusResponse(fromResource("results.v3.json"));
+    nexus.respond(V3_SEARCH, fromResource("results.v3.json"));
 
     // given this config
     List<VersionStep> history = Scanner.builder()
@@ -247,7 +406,7 @@ public class ScannerTest {
           .artifactId(ARTIFACT_ID)
           .classifier(CLASSIFIER_ID)
           .build())
-        .nexusHome("http://nexus/there")
+        .nexusHome(nexus.getHome())
         .target(Target.builder().targetdir("/tmp/here").build())
         .snapshotVersionFile("snapshot-file")
         .build())
@@ -255,8 +414,9 @@ public class ScannerTest {
       .getHistory();
 
     // then the query was valid
-    verify(request).queryString(eq("group"), eq(GROUP_ID));
-    verify(request).queryString(eq("maven.artifactId"), eq(ARTIFACT_ID));
+    StubNexus.Exchange search = onlyExchange(V3_SEARCH);
+    assertEquals(GROUP_ID, search.getQuery().get("group"));
+    assertEquals(ARTIFACT_ID, search.getQuery().get("maven.artifactId"));
 
     // and the results parse ok
     assertEquals(2, history.size());
@@ -283,4 +443,52 @@ public class ScannerTest {
     );
   }
 
+
+  @Test
+  public void testLocalRepository() throws Exception {
+    Path repository = Files.createTempDirectory("m2-");
+    try {
+      // given a local repository with two released swaggers, a snapshot, and a version without a swagger
+      Path artifactDir = repository.resolve("com/sonalake").resolve(ARTIFACT_ID);
+      for (String version : asList("1.0.1", "1.0.2", "1.1.0-SNAPSHOT")) {
+        Path versionDir = Files.createDirectories(artifactDir.resolve(version));
+        Path swagger = versionDir.resolve(format("%s-%s-%s.json", ARTIFACT_ID, version, CLASSIFIER_ID));
+        Files.write(swagger, "{}".getBytes(StandardCharsets.UTF_8));
+      }
+      Files.createDirectories(artifactDir.resolve("1.0.3"));
+      Files.write(artifactDir.resolve("maven-metadata-local.xml"), format("<metadata><groupId>%s</groupId>"
+        + "<artifactId>%s</artifactId><versioning><versions><version>1.0.1</version><version>1.0.2</version>"
+        + "<version>1.0.3</version><version>1.1.0-SNAPSHOT</version></versions></versioning></metadata>",
+        GROUP_ID, ARTIFACT_ID).getBytes(StandardCharsets.UTF_8));
+
+      Config config = Config.builder()
+        .localRepository(repository.toString())
+        .artifact(Artifact.builder()
+          .groupId(GROUP_ID)
+          .artifactId(ARTIFACT_ID)
+          .classifier(CLASSIFIER_ID)
+          .build())
+        .nexusHome(nexus.getHome())
+        .target(Target.builder().targetdir("/tmp/here").build())
+        .build();
+
+      // then the versions with swaggers are found in the metadata, without searching nexus
+      VersionStep expected = VersionStep.builder()
+        .from(VersionedArtifact.builder().group(GROUP_ID).artifact(ARTIFACT_ID).version("1.0.1")
+          .downloadFrom(artifactDir.resolve("1.0.1/order-state-service-1.0.1-openapi.json").toString())
+          .build())
+        .to(VersionedArtifact.builder().group(GROUP_ID).artifact(ARTIFACT_ID).version("1.0.2")
+          .downloadFrom(artifactDir.resolve("1.0.2/order-state-service-1.0.2-openapi.json").toString())
+          .build())
+        .build();
+      assertEquals(asList(expected), Scanner.builder().config(config).build().getHistory());
+      assertTrue(nexus.exchangesFor(V2_SEARCH).isEmpty());
+
+      // and without metadata, they're found in the version directories
+      Files.delete(artifactDir.resolve("maven-metadata-local.xml"));
+      assertEquals(asList(expected), Scanner.builder().config(config).build().getHistory());
+    } finally {
+      FileUtils.deleteDirectory(repository.toFile());
+    }
+  }
 }
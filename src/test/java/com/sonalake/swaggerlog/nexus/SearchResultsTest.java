@@ -1,5 +1,7 @@
 package com.sonalake.swaggerlog.nexus;
 
+import com.sonalake.swaggerlog.config.PreReleasePolicy;
+import com.sonalake.swaggerlog.config.RollupMode;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
 
@@ -7,7 +9,9 @@ import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Slf4j
 public class SearchResultsTest {
@@ -93,7 +97,199 @@ public class SearchResultsTest {
     testSorting(provided, expected);
   }
 
+  @Test
+  public void testSortedNumerically() {
+    List<VersionedArtifact> provided = asList(
+      version("1.10"),
+      version("20201018120000.1"),
+      version("1.9"),
+      version("99999999999999999999.1"),
+      version("1.9.1"));
+
+    // each component is compared as a number, even those too big to hold as one
+    List<VersionStep> expected = asList(
+      versionStep("1.9", "1.9.1"),
+      versionStep("1.9.1", "1.10"),
+      versionStep("1.10", "20201018120000.1"),
+      versionStep("20201018120000.1", "99999999999999999999.1")
+    );
+    testSorting(provided, expected);
+  }
+
+  @Test
+  public void testSelectedRange() {
+    List<VersionedArtifact> provided = asList(
+      version("3.9"),
+      version("4.0"),
+      version("4.2"),
+      version("5.1"),
+      version("6.0"),
+      snapshotVersion("/overHere"));
+
+    List<VersionStep> expected = asList(
+      versionStep("4.0", "4.2"),
+      versionStep("4.2", "5.1"),
+      versionStep("5.1", null)
+    );
+    testSorting(provided, VersionSelection.builder().minVersion("4.0").maxVersion("5.99").build(), expected);
+  }
+
+  @Test
+  public void testSelectedLastReleases() {
+    List<VersionedArtifact> provided = asList(
+      version("1.0"),
+      version("1.2"),
+      version("1.10"),
+      version("1.3"),
+      snapshotVersion("/overHere"));
+
+    // the snapshot isn't one of the last releases, but is always included
+    List<VersionStep> expected = asList(
+      versionStep("1.3", "1.10"),
+      versionStep("1.10", null)
+    );
+    testSorting(provided, VersionSelection.builder().lastReleases(2).build(), expected);
+  }
+
+  @Test
+  public void testHasEnough() {
+    VersionSelection lastTwo = VersionSelection.builder().lastReleases(2).minVersion("1.0").build();
+
+    assertFalse(lastTwo.hasEnough(asList(version("2.0"), version("2.0-RC1"))));
+    assertTrue(lastTwo.hasEnough(asList(version("2.0"), version("1.5"))));
+    // once the versions are below the range, no older one can be selected
+    assertTrue(lastTwo.hasEnough(asList(version("2.0"), version("0.9"))));
+    assertFalse(VersionSelection.ALL.isLimited());
+
+    // with pre-releases, the oldest selected release's pre-releases are listed after it, so it goes on to the
+    // release before that
+    VersionSelection withPreReleases = VersionSelection.builder()
+      .lastReleases(2)
+      .minVersion("1.0")
+      .preReleases(PreReleasePolicy.COLLAPSE)
+      .build();
+    assertFalse(withPreReleases.hasEnough(asList(version("2.0"), version("1.5"), version("1.5-RC1"))));
+    assertTrue(withPreReleases.hasEnough(asList(version("2.0"), version("1.5"), version("1.5-RC1"), version("1.4"))));
+  }
+
+  @Test
+  public void testPreReleasesInSemverOrder() {
+    List<VersionedArtifact> provided = asList(
+      version("1.0.0-beta.11"),
+      version("1.0.0"),
+      version("1.0.0-alpha.beta"),
+      version("1.0.0-rc.1"),
+      version("0.9"),
+      version("1.0.0-alpha"),
+      version("1.0.0-beta.2"),
+      version("1.0.0-alpha.1"),
+      version("1.0.0-beta"));
+
+    // each pre-release is diffed against the release before it, in semver order, then the release itself
+    List<VersionStep> expected = asList(
+      versionStep("0.9", "1.0.0-alpha"),
+      versionStep("0.9", "1.0.0-alpha.1"),
+      versionStep("0.9", "1.0.0-alpha.beta"),
+      versionStep("0.9", "1.0.0-beta"),
+      versionStep("0.9", "1.0.0-beta.2"),
+      versionStep("0.9", "1.0.0-beta.11"),
+      versionStep("0.9", "1.0.0-rc.1"),
+      versionStep("0.9", "1.0.0")
+    );
+    testSorting(provided, VersionSelection.builder().preReleases(PreReleasePolicy.AGAINST_BASE).build(), expected);
+  }
+
+  @Test
+  public void testPreReleasesAgainstBase() {
+    List<VersionedArtifact> provided = asList(
+      version("1.0"),
+      version("1.1.0-RC.2"),
+      version("1.1.0"),
+      version("1.1.0-RC.1"),
+      version("1.2.0-alpha"),
+      snapshotVersion("/overHere"));
+
+    List<VersionStep> expected = asList(
+      versionStep("1.0", "1.1.0-RC.1"),
+      versionStep("1.0", "1.1.0-RC.2"),
+      versionStep("1.0", "1.1.0"),
+      versionStep("1.1.0", "1.2.0-alpha"),
+      versionStep("1.1.0", null)
+    );
+    testSorting(provided, VersionSelection.builder().preReleases(PreReleasePolicy.AGAINST_BASE).build(), expected);
+  }
+
+  @Test
+  public void testPreReleasesCollapsed() {
+    List<VersionedArtifact> provided = asList(
+      version("1.0"),
+      version("1.1.0-RC1"),
+      version("1.1.0-RC2"),
+      version("1.1.0"),
+      version("1.2.0-beta.11"),
+      version("1.2.0-alpha"),
+      version("1.2.0-beta.2"));
+
+    // a released version's pre-releases are left out, otherwise only the latest is kept
+    List<VersionStep> expected = asList(
+      versionStep("1.0", "1.1.0"),
+      versionStep("1.1.0", "1.2.0-beta.11")
+    );
+    testSorting(provided, VersionSelection.builder().preReleases(PreReleasePolicy.COLLAPSE).build(), expected);
+    assertEquals(PreReleasePolicy.AGAINST_BASE, PreReleasePolicy.of("against-base"));
+    assertEquals(PreReleasePolicy.RELEASES_ONLY, PreReleasePolicy.of(null));
+    assertThrows(IllegalArgumentException.class, () -> PreReleasePolicy.of("nightly"));
+  }
+
+  @Test
+  public void testRolledUpByMinor() {
+    List<VersionedArtifact> provided = asList(
+      version("1.1.0"),
+      version("1.2.0"),
+      version("1.2.10"),
+      version("1.2.9"),
+      version("1.3.0"),
+      version("2.0"),
+      version("2.0.1"),
+      snapshotVersion("/overHere"));
+
+    // only the last release of each minor line is diffed, the rest are folded into the step to it
+    List<VersionStep> expected = asList(
+      versionStep("1.1.0", "1.2.10", "1.2.0", "1.2.9"),
+      versionStep("1.2.10", "1.3.0"),
+      versionStep("1.3.0", "2.0.1", "2.0"),
+      versionStep("2.0.1", null)
+    );
+    testSorting(provided, VersionSelection.builder().rollup(RollupMode.MINOR).build(), expected);
+  }
+
+  @Test
+  public void testRolledUpLastReleases() {
+    List<VersionedArtifact> provided = asList(
+      version("1.0.3"),
+      version("1.9.2"),
+      version("2.0.0"),
+      version("2.4.0"),
+      version("3.0.0"));
+
+    // the last releases are counted in lines
+    List<VersionStep> expected = asList(
+      versionStep("2.4.0", "3.0.0")
+    );
+    VersionSelection lastTwo = VersionSelection.builder().rollup(RollupMode.MAJOR).lastReleases(2).build();
+    testSorting(provided, lastTwo, expected);
+
+    assertFalse(lastTwo.hasEnough(asList(version("3.0.1"), version("3.0.0"))));
+    assertTrue(lastTwo.hasEnough(asList(version("3.0.1"), version("3.0.0"), version("2.4.0"))));
+    assertEquals(RollupMode.MINOR, RollupMode.of("Minor"));
+    assertThrows(IllegalArgumentException.class, () -> RollupMode.of("patch"));
+  }
+
   private void testSorting(List<VersionedArtifact> provided, List<VersionStep> expected) {
+    testSorting(provided, VersionSelection.ALL, expected);
+  }
+
+  private void testSorting(List<VersionedArtifact> provided, VersionSelection selection, List<VersionStep> expected) {
     log.debug("Provided: {}", provided);
     log.debug("Expected: {}", expected);
 
@@ -102,6 +298,7 @@ public class SearchResultsTest {
       expected,
       SearchResults.builder()
         .versions(provided)
+        .selection(selection)
         .build()
         .buildHistory()
     );
@@ -122,11 +319,14 @@ public class SearchResultsTest {
 
   }
 
-  private VersionStep versionStep(String from, String to) {
-    VersionStep step = VersionStep.builder()
+  private VersionStep versionStep(String from, String to, String... folded) {
+    VersionStep.VersionStepBuilder builder = VersionStep.builder()
       .from(version(from))
-      .to(version(to))
-      .build();
+      .to(version(to));
+    for (String version : folded) {
+      builder.foldedVersion(version(version));
+    }
+    VersionStep step = builder.build();
     log.debug("Testing step: " + step);
     return step;
   }